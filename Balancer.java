@@ -0,0 +1,71 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Picks the station an arriving car is sent to, out of the shards of a {@link StationCluster}.
+ */
+public interface Balancer {
+
+    /**
+     * @param shards How many stations there are to choose from, at least 1.
+     * @param load   How busy a station is right now, by index; lower is better.
+     * @return The index of the chosen station.
+     */
+    int choose(int shards, IntToLongFunction load);
+
+    enum Policy {
+        RANDOM,         // any station, uniformly
+        ROUND_ROBIN,    // the stations in turn
+        SHORTEST_QUEUE, // the least loaded of all stations
+        TWO_CHOICES;    // the less loaded of two random stations (default)
+
+        public Balancer newBalancer() {
+            switch (this) {
+                case RANDOM:
+                    return (shards, load) -> ThreadLocalRandom.current().nextInt(shards);
+                case ROUND_ROBIN: {
+                    AtomicInteger next = new AtomicInteger();
+                    return (shards, load) -> Math.floorMod(next.getAndIncrement(), shards);
+                }
+                case SHORTEST_QUEUE:
+                    return Balancer::leastLoaded;
+                case TWO_CHOICES:
+                default:
+                    return Balancer::lessLoadedOfTwo;
+            }
+        }
+    }
+
+    /**
+     * One look at every station per car, starting at a random one so that ties spread.
+     */
+    static int leastLoaded(int shards, IntToLongFunction load) {
+        int start = ThreadLocalRandom.current().nextInt(shards);
+        int best = start;
+        long bestLoad = load.applyAsLong(start);
+        for (int i = 1; i < shards && bestLoad > 0; i++) {
+            int index = (start + i) % shards;
+            long next = load.applyAsLong(index);
+            if (next < bestLoad) {
+                best = index;
+                bestLoad = next;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The less loaded of two different random stations: nearly as even as looking at all
+     * of them, but two looks however many stations there are.
+     */
+    static int lessLoadedOfTwo(int shards, IntToLongFunction load) {
+        if (shards == 1) {
+            return 0;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(shards);
+        int second = (first + 1 + random.nextInt(shards - 1)) % shards; // a different station
+        return load.applyAsLong(second) < load.applyAsLong(first) ? second : first;
+    }
+}
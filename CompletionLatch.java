@@ -0,0 +1,72 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the cars a station has admitted but not yet finished with, and lets a thread
+ * wait for that count to reach zero or to drop to a limit. Unlike a CountDownLatch it can go up again after
+ * reaching zero, and unlike a Phaser it has no limit on the number of cars in flight.
+ */
+public class CompletionLatch {
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicInteger limitWaiters = new AtomicInteger(); // threads in awaitAtMost with a limit above 0
+
+    public void admit() {
+        pending.incrementAndGet();
+    }
+
+    /**
+     * Called once per admitted car, when it has left the station or given up.
+     */
+    public void done() {
+        if (pending.decrementAndGet() == 0 || limitWaiters.get() > 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    public long pending() {
+        return pending.get();
+    }
+
+    /**
+     * Waits until no car is pending.
+     * @return false if the timeout elapsed first.
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return awaitAtMost(0, timeout, unit);
+    }
+
+    /**
+     * Waits until at most {@code limit} cars are pending, e.g. to bound how far a producer
+     * runs ahead of the pumps.
+     * @return false if the timeout elapsed first.
+     */
+    public boolean awaitAtMost(long limit, long timeout, TimeUnit unit) throws InterruptedException {
+        if (pending.get() <= limit) {
+            return true;
+        }
+        long nanos = unit.toNanos(timeout);
+        long start = System.nanoTime();
+        if (limit > 0) {
+            limitWaiters.incrementAndGet();
+        }
+        try {
+            synchronized (this) {
+                while (pending.get() > limit) {
+                    long left = nanos - (System.nanoTime() - start);
+                    if (left <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, left);
+                }
+            }
+        } finally {
+            if (limit > 0) {
+                limitWaiters.decrementAndGet();
+            }
+        }
+        return true;
+    }
+}
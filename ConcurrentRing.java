@@ -0,0 +1,77 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free multi-producer/multi-consumer queue on a preallocated array.
+ *
+ * Same cell sequence scheme as {@link RingBufferWaitingArea}, but positions are claimed with
+ * a CAS after checking the cell, so it never blocks: offer() fails when the ring is full and
+ * poll() returns null when it is empty.
+ */
+public class ConcurrentRing<E> {
+    private final Object[] cells;
+    private final AtomicLongArray sequence;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    public ConcurrentRing(int capacity) {
+        // With a single cell "written" and "free for the next lap" would be the same sequence value.
+        int length = Math.max(2, capacity);
+        cells = new Object[length];
+        sequence = new AtomicLongArray(length);
+        for (int i = 0; i < length; i++) {
+            sequence.set(i, i);
+        }
+    }
+
+    public boolean offer(E element) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos % cells.length);
+            long lag = sequence.get(index) - pos;
+            if (lag == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    cells[index] = element;
+                    sequence.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (lag < 0) {
+                return false; // the cell still holds an element from the previous lap
+            } else {
+                pos = tail.get(); // another producer took this position
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long pos = head.get();
+        while (true) {
+            int index = (int) (pos % cells.length);
+            long lag = sequence.get(index) - (pos + 1);
+            if (lag == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E element = (E) cells[index];
+                    cells[index] = null;
+                    sequence.set(index, pos + cells.length);
+                    return element;
+                }
+                pos = head.get();
+            } else if (lag < 0) {
+                return null; // nothing written here yet
+            } else {
+                pos = head.get(); // another consumer took this position
+            }
+        }
+    }
+
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, cells.length));
+    }
+
+    public int capacity() {
+        return cells.length;
+    }
+}
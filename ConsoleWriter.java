@@ -0,0 +1,345 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects console lines in a direct buffer and writes them to a channel in large blocks,
+ * instead of a flushed System.out.println (one system call) per line. The buffer goes out
+ * when the next lines do not fit, every flush interval if it holds any lines, and on
+ * {@link #flush()}.
+ *
+ * Lines handed over in one call are copied into the buffer in one piece under the
+ * writer's lock, so the output is in the order of the calls: the lines of one pump stay
+ * in order, and another pump's lines never end up in between them. The channel itself is
+ * only written by the writer's own thread, from a second buffer, while the callers fill
+ * the first: a FileChannel is closed for good when a thread writing to it is interrupted,
+ * and the car and pump threads are interrupted when a station stops. A caller only waits
+ * when it has filled its buffer before the writer thread is done with the other one.
+ *
+ * Like a PrintStream, the writer does not throw when the output fails: the lines are
+ * dropped and {@link #checkError()} turns true.
+ */
+public final class ConsoleWriter {
+    private static final String EOL = System.lineSeparator();
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final boolean ascii; // characters below 0x80 are encoded as themselves
+    private final long flushMillis;
+    private final boolean closeable;
+    // Held for a whole call, so that no other lines come in while a caller waits for a buffer
+    private final ReentrantLock lock = new ReentrantLock();
+    private ByteBuffer buffer; // the one being filled, guarded by lock
+    // Between the callers and the writer thread. Locks, not monitors, so that a virtual car
+    // thread waiting for the writer does not pin its carrier.
+    private final ReentrantLock blocks = new ReentrantLock();
+    private final Condition handed = blocks.newCondition();  // signalled when 'full' is set
+    private final Condition written = blocks.newCondition(); // signalled when 'writtenOut' moves
+    // Guarded by blocks: the other buffer, which is either 'spare' (empty) or 'full' (handed
+    // to the writer thread, until it has written it out)
+    private ByteBuffer spare;
+    private ByteBuffer full;
+    private long handedOver; // buffers handed to the writer thread so far
+    private long writtenOut; // and written out by it
+    private volatile boolean closed;
+    private volatile boolean failed;
+
+    /**
+     * @param bufferBytes Size of each of the two buffers; a full one is written out.
+     * @param flushMillis Longest time a line stays in the buffer.
+     * @param threadName Name of the thread that writes to the channel.
+     */
+    public ConsoleWriter(WritableByteChannel channel, Charset charset, int bufferBytes, long flushMillis,
+                         String threadName) {
+        this(channel, charset, bufferBytes, flushMillis, threadName, true);
+    }
+
+    private ConsoleWriter(WritableByteChannel channel, Charset charset, int bufferBytes, long flushMillis,
+                          String threadName, boolean closeable) {
+        this.channel = channel;
+        this.closeable = closeable;
+        buffer = ByteBuffer.allocateDirect(Math.max(256, bufferBytes));
+        spare = ByteBuffer.allocateDirect(buffer.capacity());
+        encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ascii = charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1);
+        this.flushMillis = Math.max(1, flushMillis);
+        Thread.ofPlatform().name(threadName).daemon().start(this::writeBlocks);
+    }
+
+    /**
+     * The process's standard output, written through a FileChannel of its own. The buffer
+     * size and flush interval come from -Dstation.console.buffer (bytes, default 64 KiB)
+     * and -Dstation.console.flushMillis (default 50). Whatever is left in it is written
+     * out when the JVM exits normally. It is shared by the whole process, so close() only
+     * flushes it.
+     */
+    public static ConsoleWriter stdout() {
+        return Stdout.INSTANCE;
+    }
+
+    /**
+     * Adds the lines to the buffer.
+     * @param lines One or more complete lines, each ending with the line separator.
+     */
+    public void append(CharSequence lines) {
+        lock.lock();
+        try {
+            put(lines);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the line and a line separator to the buffer.
+     */
+    public void println(CharSequence line) {
+        lock.lock();
+        try {
+            put(line);
+            put(EOL);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes out everything in the buffer, and waits until it is.
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            if (buffer.position() > 0) {
+                handOver();
+            }
+            blocks.lock();
+            try {
+                awaitWritten(handedOver);
+            } finally {
+                blocks.unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes out everything in the buffer and stops the writer thread. Lines added after
+     * this are written out at once, on the thread that adds them.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            flush();
+            blocks.lock();
+            try {
+                if (closeable && !closed) {
+                    closed = true;
+                    handed.signal();
+                }
+            } finally {
+                blocks.unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Whether some output has failed and was dropped.
+     */
+    public boolean checkError() {
+        return failed;
+    }
+
+    private void put(CharSequence text) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (ascii && c < 0x80) {
+                if (!buffer.hasRemaining()) {
+                    handOver();
+                }
+                buffer.put((byte) c);
+                i++;
+            } else {
+                i = encode(text, i);
+            }
+        }
+    }
+
+    // Encodes the characters from start up to the next one that is plain ASCII; returns where it stopped.
+    private int encode(CharSequence text, int start) {
+        int end = start + 1;
+        while (end < text.length() && !(ascii && text.charAt(end) < 0x80)) {
+            end++;
+        }
+        CharBuffer chars = CharBuffer.wrap(text, start, end);
+        encoder.reset();
+        // Errors are replaced, so a result is either underflow (all done) or overflow (buffer full).
+        while (encoder.encode(chars, buffer, true).isOverflow()) {
+            handOver();
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            handOver();
+        }
+        return end;
+    }
+
+    // Swaps the buffer for the spare one, once the writer thread has written that out; needs
+    // the lock. Only called by the callers, never by the writer thread, which would wait for itself.
+    private void handOver() {
+        if (closed) {
+            writeOutHere();
+            return;
+        }
+        blocks.lock();
+        try {
+            awaitWritten(handedOver);
+            swap();
+        } finally {
+            blocks.unlock();
+        }
+    }
+
+    // Needs both locks, and the spare buffer.
+    private void swap() {
+        full = buffer;
+        buffer = spare;
+        spare = null;
+        handedOver++;
+        handed.signal();
+    }
+
+    // Waits for the writer thread, holding blocks; an interrupt does not stop the wait but is kept for the caller.
+    private void awaitWritten(long count) {
+        boolean interrupted = false;
+        while (writtenOut < count) {
+            try {
+                written.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // After close(): the caller writes, with its interrupt put aside so it cannot close the channel.
+    private void writeOutHere() {
+        boolean interrupted = Thread.interrupted();
+        write(buffer);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(ByteBuffer block) {
+        block.flip();
+        try {
+            while (block.hasRemaining() && !failed) {
+                channel.write(block);
+            }
+        } catch (IOException e) {
+            failed = true;
+        }
+        block.clear();
+    }
+
+    // The writer thread: writes out the full buffers, and the partly filled one every flush interval.
+    private void writeBlocks() {
+        while (true) {
+            ByteBuffer block = awaitFull();
+            if (block == null) {
+                if (closed) {
+                    return;
+                }
+                block = takePartlyFilled();
+                if (block == null) {
+                    continue;
+                }
+            }
+            write(block);
+            blocks.lock();
+            try {
+                full = null;
+                spare = block;
+                writtenOut++;
+                written.signalAll();
+            } finally {
+                blocks.unlock();
+            }
+        }
+    }
+
+    // The buffer handed over, or null if none came within the flush interval.
+    private ByteBuffer awaitFull() {
+        blocks.lock();
+        try {
+            if (full == null && !closed) {
+                try {
+                    handed.await(flushMillis, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    // nobody else knows this thread; keep writing
+                }
+            }
+            return full;
+        } finally {
+            blocks.unlock();
+        }
+    }
+
+    // Takes the buffer being filled if it holds lines and the spare one is free; null if a
+    // caller is busy (it hands over itself, or it is done by the next interval), or a block
+    // came in meanwhile (written next).
+    private ByteBuffer takePartlyFilled() {
+        if (!lock.tryLock()) {
+            return null;
+        }
+        try {
+            blocks.lock();
+            try {
+                if (full != null || closed || buffer.position() == 0) {
+                    return null;
+                }
+                swap();
+                return full;
+            } finally {
+                blocks.unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Created on first use, so programs that never print to the console start no thread for it.
+    private static final class Stdout {
+        static final ConsoleWriter INSTANCE = create();
+
+        private static ConsoleWriter create() {
+            String encoding = System.getProperty("stdout.encoding");
+            Charset charset = encoding != null && Charset.isSupported(encoding)
+                    ? Charset.forName(encoding) : Charset.defaultCharset();
+            ConsoleWriter writer = new ConsoleWriter(new FileOutputStream(FileDescriptor.out).getChannel(), charset,
+                    Integer.getInteger("station.console.buffer", 64 * 1024),
+                    Long.getLong("station.console.flushMillis", 50), "Console-Writer", false);
+            Runtime.getRuntime().addShutdownHook(new Thread(writer::flush, "Console-Writer-Exit"));
+            return writer;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Discrete-event version of the station. It follows the same rules as the threaded
+ * ServiceStationConsole - cars are added one gap apart, need a random delay to reach the
+ * waiting area, wait for a free slot when it is full, and are served in order by the pump
+ * that has been idle the longest - but time is a virtual clock that jumps straight to the
+ * next event instead of threads sleeping through it.
+ *
+ * Everything runs on the calling thread and a run is repeatable for a given seed.
+ */
+public class DiscreteEventStation {
+    private static final int ADD = 0;    // the car is handed to the station (addCar)
+    private static final int ARRIVE = 1; // the car reaches the waiting area (after simulateArrival)
+    private static final int FINISH = 2; // a pump finishes its car
+
+    private static final class Event implements Comparable<Event> {
+        final long time; // virtual milliseconds
+        final long sequence;
+        final int type;
+        final String car;
+        final int pumpId;
+        final Event visit; // for FINISH: the ARRIVE event of the car being served
+        long startedAt;
+
+        Event(long time, long sequence, int type, String car, int pumpId, Event visit) {
+            this.time = time;
+            this.sequence = sequence;
+            this.type = type;
+            this.car = car;
+            this.pumpId = pumpId;
+            this.visit = visit;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final int waitingAreaSize;
+    private final int numberOfPumps;
+    private final StationConfig config;
+    private final SplittableRandom random;
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private final ArrayDeque<Event> waitingArea = new ArrayDeque<>();
+    private final ArrayDeque<Event> blockedCars = new ArrayDeque<>(); // cars stuck in empty.waiting()
+    private final ArrayDeque<Integer> idlePumps = new ArrayDeque<>();
+    private long now;
+    private long sequence;
+    private long added;
+
+    public DiscreteEventStation(int waitingAreaSize, int numberOfPumps, StationConfig config) {
+        this.waitingAreaSize = waitingAreaSize;
+        this.numberOfPumps = numberOfPumps;
+        this.config = config;
+        random = new SplittableRandom(config.seed());
+    }
+
+    public QueueStats run(String[] cars) {
+        return run(Arrays.stream(cars).map(String::trim).iterator());
+    }
+
+    /**
+     * Pushes every car through the station and returns the statistics once the last one
+     * has left its bay. Cars are pulled from the iterator one at a time, when they are added.
+     */
+    public QueueStats run(Iterator<String> cars) {
+        events.clear();
+        waitingArea.clear();
+        blockedCars.clear();
+        idlePumps.clear();
+        for (int i = 1; i <= numberOfPumps; i++) {
+            idlePumps.add(i);
+        }
+        now = 0;
+        added = 0;
+
+        QueueStats stats = new QueueStats();
+        if (cars.hasNext()) {
+            schedule(0, ADD, cars.next(), 0, null);
+        }
+        while (!events.isEmpty()) {
+            Event event = events.poll();
+            now = event.time;
+            switch (event.type) {
+                case ADD:
+                    schedule(now + config.arrivalDelayMillis(random), ARRIVE, event.car, 0, null);
+                    if (cars.hasNext()) {
+                        schedule(now + config.gapAfter(added, numberOfPumps), ADD, cars.next(), 0, null);
+                    }
+                    added++;
+                    break;
+                case ARRIVE:
+                    if (waitingArea.size() < waitingAreaSize) {
+                        enter(event, stats);
+                    } else {
+                        blockedCars.add(event);
+                    }
+                    break;
+                case FINISH:
+                    stats.recordService(nanos(event.visit.time), nanos(event.startedAt), nanos(now));
+                    idlePumps.add(event.pumpId);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown event type " + event.type);
+            }
+            dispatch(stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Cars that could never get into the waiting area, e.g. when its capacity is 0.
+     */
+    public int stuckCars() {
+        return blockedCars.size();
+    }
+
+    private void enter(Event car, QueueStats stats) {
+        waitingArea.add(car);
+        stats.recordQueueLength(waitingArea.size());
+    }
+
+    // Idle pumps take the oldest waiting cars; every car taken frees a slot for a blocked one.
+    private void dispatch(QueueStats stats) {
+        while (!idlePumps.isEmpty() && !waitingArea.isEmpty()) {
+            Event car = waitingArea.poll();
+            if (!blockedCars.isEmpty()) {
+                enter(blockedCars.poll(), stats);
+            }
+            Event finish = schedule(now + config.serviceMillis(), FINISH, car.car, idlePumps.poll(), car);
+            finish.startedAt = now;
+        }
+    }
+
+    private Event schedule(long time, int type, String car, int pumpId, Event visit) {
+        Event event = new Event(time, sequence++, type, car, pumpId, visit);
+        events.add(event);
+        return event;
+    }
+
+    private static long nanos(long millis) {
+        return millis * 1_000_000L;
+    }
+
+    /**
+     * Runs a synthetic workload: java DiscreteEventStation waitingAreaSize numberOfPumps numberOfCars
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: java DiscreteEventStation <waiting area capacity> <pumps> <cars>");
+            return;
+        }
+        int waitingSize = Integer.parseInt(args[0]);
+        int numberOfPumps = Integer.parseInt(args[1]);
+        long numberOfCars = Long.parseLong(args[2]);
+
+        Iterator<String> cars = new Iterator<>() {
+            private long next = 1;
+
+            @Override
+            public boolean hasNext() {
+                return next <= numberOfCars;
+            }
+
+            @Override
+            public String next() {
+                return "C" + next++;
+            }
+        };
+
+        DiscreteEventStation station = new DiscreteEventStation(waitingSize, numberOfPumps,
+                StationConfig.fromSystemProperties());
+        long start = System.nanoTime();
+        QueueStats stats = station.run(cars);
+        long took = System.nanoTime() - start;
+        System.out.println("Discrete-event run: " + stats);
+        System.out.printf("Simulated %d cars in %.1f ms of real time.%n", stats.served(), took / 1e6);
+        if (station.stuckCars() > 0) {
+            System.out.println(station.stuckCars() + " cars never got into the waiting area.");
+        }
+    }
+}
@@ -0,0 +1,246 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Takes station events off the car and pump threads without allocating: every event is
+ * written as a fixed-layout record (type, pump id, car, queue length, nanoTime) into a
+ * slot of preallocated arrays, and the car is the name it already has. A single drainer
+ * thread replays the records in order into the sink behind, so lines are only rendered
+ * there, and not at all if that sink ignores them.
+ *
+ * The slots are a ring with the same sequence scheme as {@link ConcurrentRing}. When it
+ * is full, a thread reporting an event waits for the drainer, so no event is lost.
+ *
+ * {@link #close()} lets the drainer replay what is left and stop. Events reported after
+ * that go straight to the sink behind, on the reporting thread.
+ */
+public final class EventRecorder implements StationEventSink {
+    private static final byte ARRIVED = 0;
+    private static final byte QUEUED = 1;
+    private static final byte SERVICE_STARTED = 2;
+    private static final byte SERVICE_FINISHED = 3;
+    private static final byte BAY_FREED = 4;
+    private static final long IDLE_PARK_NANOS = 50_000_000L;
+    private static final long CLOSED = 1L << 62; // set in tail once no more slots are handed out
+
+    private final StationEventSink target;
+    // One record per slot, spread over parallel arrays
+    private final byte[] types;
+    private final int[] pumpIds;
+    private final String[] cars;
+    private final int[] queueLengths;
+    private final boolean[] pumpsBusy;
+    private final long[] nanos;
+    private final AtomicLongArray sequence;
+    private final AtomicLong tail = new AtomicLong(); // next slot, plus CLOSED after close()
+    private final AtomicLong drained = new AtomicLong(); // records replayed so far; only the drainer moves it
+    private final Thread drainer;
+    private volatile boolean drainerParked;
+
+    /**
+     * @param slots How many events may wait for the drainer.
+     * @param threadName The drainer thread's name.
+     */
+    public EventRecorder(StationEventSink target, int slots, String threadName) {
+        this.target = target;
+        // With a single slot "written" and "free for the next lap" would be the same sequence value.
+        int length = Math.max(2, slots);
+        types = new byte[length];
+        pumpIds = new int[length];
+        cars = new String[length];
+        queueLengths = new int[length];
+        pumpsBusy = new boolean[length];
+        nanos = new long[length];
+        sequence = new AtomicLongArray(length);
+        for (int i = 0; i < length; i++) {
+            sequence.set(i, i);
+        }
+        drainer = Thread.ofPlatform().name(threadName).daemon().start(this::drain);
+    }
+
+    @Override
+    public void arrived(String car, long atNanos) {
+        long pos = claim();
+        if (pos < 0) {
+            target.arrived(car, atNanos);
+            return;
+        }
+        int i = index(pos);
+        types[i] = ARRIVED;
+        cars[i] = car;
+        nanos[i] = atNanos;
+        publish(pos);
+    }
+
+    @Override
+    public void queued(String car, int queueLength, boolean pumpsBusy, long atNanos) {
+        long pos = claim();
+        if (pos < 0) {
+            target.queued(car, queueLength, pumpsBusy, atNanos);
+            return;
+        }
+        int i = index(pos);
+        types[i] = QUEUED;
+        cars[i] = car;
+        queueLengths[i] = queueLength;
+        this.pumpsBusy[i] = pumpsBusy;
+        nanos[i] = atNanos;
+        publish(pos);
+    }
+
+    @Override
+    public void serviceStarted(int pumpId, String car, int queueLength, long atNanos) {
+        long pos = claim();
+        if (pos < 0) {
+            target.serviceStarted(pumpId, car, queueLength, atNanos);
+            return;
+        }
+        int i = index(pos);
+        types[i] = SERVICE_STARTED;
+        pumpIds[i] = pumpId;
+        cars[i] = car;
+        queueLengths[i] = queueLength;
+        nanos[i] = atNanos;
+        publish(pos);
+    }
+
+    @Override
+    public void serviceFinished(int pumpId, String car, long atNanos) {
+        long pos = claim();
+        if (pos < 0) {
+            target.serviceFinished(pumpId, car, atNanos);
+            return;
+        }
+        int i = index(pos);
+        types[i] = SERVICE_FINISHED;
+        pumpIds[i] = pumpId;
+        cars[i] = car;
+        nanos[i] = atNanos;
+        publish(pos);
+    }
+
+    @Override
+    public void bayFreed(int pumpId, long atNanos) {
+        long pos = claim();
+        if (pos < 0) {
+            target.bayFreed(pumpId, atNanos);
+            return;
+        }
+        int i = index(pos);
+        types[i] = BAY_FREED;
+        pumpIds[i] = pumpId;
+        nanos[i] = atNanos;
+        publish(pos);
+    }
+
+    /**
+     * Waits until every event reported before this call has been replayed, then flushes
+     * the sink behind.
+     */
+    @Override
+    public void flush() {
+        awaitDrained(tail.get() & ~CLOSED);
+        target.flush();
+    }
+
+    /**
+     * Replays every event reported so far, stops the drainer thread and closes the sink
+     * behind.
+     */
+    @Override
+    public void close() {
+        long end;
+        do {
+            end = tail.get();
+        } while ((end & CLOSED) == 0 && !tail.compareAndSet(end, end | CLOSED));
+        awaitDrained(end & ~CLOSED); // the drainer stops once it gets there
+        target.close();
+    }
+
+    private void awaitDrained(long reported) {
+        while (drained.get() < reported) {
+            LockSupport.unpark(drainer);
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    // Takes the next slot, waiting for the drainer while the ring is full; -1 after close().
+    private long claim() {
+        long pos = tail.get();
+        while (true) {
+            if ((pos & CLOSED) != 0) {
+                return -1;
+            }
+            long lag = sequence.get(index(pos)) - pos;
+            if (lag == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    return pos;
+                }
+            } else if (lag < 0) {
+                // the slot still holds a record from the previous lap
+                LockSupport.unpark(drainer);
+                LockSupport.parkNanos(100_000);
+            }
+            pos = tail.get();
+        }
+    }
+
+    private void publish(long pos) {
+        sequence.set(index(pos), pos + 1);
+        if (drainerParked) {
+            LockSupport.unpark(drainer);
+        }
+    }
+
+    private int index(long pos) {
+        return (int) (pos % types.length);
+    }
+
+    private void drain() {
+        long pos = 0;
+        while (true) {
+            int i = index(pos);
+            if (sequence.get(i) != pos + 1) {
+                if (tail.get() == (pos | CLOSED)) {
+                    return; // closed, and every slot handed out has been replayed
+                }
+                drainerParked = true;
+                if (sequence.get(i) != pos + 1) { // re-check: a record may have come before the flag was visible
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                drainerParked = false;
+                continue;
+            }
+            try {
+                replay(i);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            cars[i] = null;
+            sequence.set(i, pos + types.length);
+            drained.set(++pos);
+        }
+    }
+
+    private void replay(int i) {
+        switch (types[i]) {
+            case ARRIVED:
+                target.arrived(cars[i], nanos[i]);
+                break;
+            case QUEUED:
+                target.queued(cars[i], queueLengths[i], pumpsBusy[i], nanos[i]);
+                break;
+            case SERVICE_STARTED:
+                target.serviceStarted(pumpIds[i], cars[i], queueLengths[i], nanos[i]);
+                break;
+            case SERVICE_FINISHED:
+                target.serviceFinished(pumpIds[i], cars[i], nanos[i]);
+                break;
+            case BAY_FREED:
+            default:
+                target.bayFreed(pumpIds[i], nanos[i]);
+                break;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A ring buffer that keeps cars strictly in arrival order. Every arriving car first draws
+ * a ticket, and the ticket is its position in the ring: car t may only move into cell
+ * (t % n) once the car n places ahead of it has been taken, so when the area is full the
+ * cars get in in the order they drew tickets, and no car can overtake one that is already
+ * waiting to get in. Pumps are served in the order they asked through a fair 'full'
+ * semaphore (see {@link Semaphore#Semaphore(int, boolean)}).
+ *
+ * In {@link RingBufferWaitingArea} the cars instead race for the free slots on the 'empty'
+ * semaphore, which is faster but lets a late arrival get in ahead of an earlier one.
+ *
+ * A car that gives up (timeout or interrupt) cannot hand its ticket back, so it leaves a
+ * skip mark: whoever frees its cell fills it with SKIPPED and the pump that takes the
+ * mark passes the cell on to the next ticket.
+ */
+public class FairWaitingArea<E> implements WaitingArea<E> {
+    private static final Object SKIPPED = new Object();   // in a cell: the car gave up its ticket
+    private static final Object CANCELLED = new Object(); // in 'parked': the car stopped waiting
+    private static final long FOREVER = 0;
+
+    private final Object[] cells;
+    private final AtomicLongArray sequence;
+    private final AtomicLong tickets = new AtomicLong(); // next ticket, in arrival order
+    private final AtomicLong head = new AtomicLong();    // next ticket a pump takes
+    private final Semaphore full = new Semaphore(0, true); // cars (and skip marks) waiting
+    // Cars parked until the cell of their ticket is free: ticket -> Thread, or CANCELLED
+    private final ConcurrentHashMap<Long, Object> parked = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+
+    public FairWaitingArea(int capacity) {
+        this.capacity = capacity;
+        int length = Math.max(1, capacity);
+        cells = new Object[length];
+        sequence = new AtomicLongArray(length);
+        for (int i = 0; i < length; i++) {
+            sequence.set(i, i);
+        }
+        if (capacity <= 0) {
+            // No waiting room, like the other areas: the one cell is never free for any ticket,
+            // so tryEnter() fails and enter() waits until it is interrupted or times out.
+            sequence.set(0, -1);
+        }
+    }
+
+    @Override
+    public void enter(E car) throws InterruptedException {
+        long ticket = tickets.getAndIncrement();
+        awaitCell(ticket, FOREVER);
+        insert(ticket, car);
+    }
+
+    /**
+     * Only takes a ticket that can be served at once, which is never ahead of a waiting car.
+     */
+    @Override
+    public boolean tryEnter(E car) {
+        long ticket;
+        do {
+            ticket = tickets.get();
+            if (sequence.get(index(ticket)) != ticket) {
+                return false;
+            }
+        } while (!tickets.compareAndSet(ticket, ticket + 1));
+        insert(ticket, car);
+        return true;
+    }
+
+    @Override
+    public boolean enter(E car, long timeout, TimeUnit unit) throws InterruptedException {
+        if (tryEnter(car)) {
+            return true;
+        }
+        long nanos = unit.toNanos(timeout);
+        if (nanos <= 0) {
+            return false;
+        }
+        long ticket = tickets.getAndIncrement();
+        if (!awaitCell(ticket, Math.min(nanos, Long.MAX_VALUE / 4))) {
+            return false;
+        }
+        insert(ticket, car);
+        return true;
+    }
+
+    // Returns false if the car gave its ticket up after the timeout; nanos is FOREVER or positive.
+    private boolean awaitCell(long ticket, long nanos) throws InterruptedException {
+        int index = index(ticket);
+        if (sequence.get(index) == ticket) {
+            return true;
+        }
+        Thread current = Thread.currentThread();
+        long deadline = System.nanoTime() + nanos;
+        parked.put(ticket, current);
+        // Registered before this check, so the pump that frees the cell will see us.
+        while (sequence.get(index) != ticket) {
+            boolean interrupted = Thread.interrupted();
+            boolean timedOut = nanos != FOREVER && deadline - System.nanoTime() <= 0;
+            if (interrupted || timedOut) {
+                if (parked.replace(ticket, current, CANCELLED)) {
+                    if (interrupted) {
+                        throw new InterruptedException();
+                    }
+                    return false;
+                }
+                // The cell was freed meanwhile and is ours; keep the interrupt for later.
+                if (interrupted) {
+                    current.interrupt();
+                }
+                break;
+            }
+            if (nanos == FOREVER) {
+                LockSupport.park(this);
+            } else {
+                LockSupport.parkNanos(this, deadline - System.nanoTime());
+            }
+        }
+        parked.remove(ticket, current);
+        return true;
+    }
+
+    // The cell of the ticket is free.
+    private void insert(long ticket, Object car) {
+        int index = index(ticket);
+        cells[index] = car;
+        if (car != SKIPPED) {
+            size.incrementAndGet();
+        }
+        sequence.set(index, ticket + 1);
+        full.signal();
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        while (true) {
+            full.waiting();
+            E car = claim();
+            if (car != null) {
+                return car;
+            }
+        }
+    }
+
+    @Override
+    public int takeBatch(List<? super E> batch, int max) throws InterruptedException {
+        while (true) {
+            int count = full.drain(max);
+            int cars = 0;
+            for (int i = 0; i < count; i++) {
+                E car = claim();
+                if (car != null) {
+                    batch.add(car);
+                    cars++;
+                }
+            }
+            if (cars > 0) {
+                return cars;
+            }
+        }
+    }
+
+    // Takes the car at the head, holding a 'full' permit for it; null for a skip mark.
+    @SuppressWarnings("unchecked")
+    private E claim() {
+        long ticket = head.getAndIncrement();
+        int index = index(ticket);
+        // The car that owns this ticket may still be writing into the cell.
+        for (int spins = 0; sequence.get(index) != ticket + 1; spins++) {
+            if (spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        Object car = cells[index];
+        cells[index] = null;
+        if (car != SKIPPED) {
+            size.decrementAndGet();
+        }
+        long next = ticket + cells.length;
+        sequence.set(index, next);
+        if (!parked.isEmpty()) { // saves boxing the ticket while no car waits to get in
+            admit(next);
+        }
+        return car == SKIPPED ? null : (E) car;
+    }
+
+    // The cell of the ticket was just freed: wake its car, or mark it skipped if the car gave up.
+    private void admit(long ticket) {
+        Object waiter = parked.remove(ticket);
+        if (waiter == CANCELLED) {
+            insert(ticket, SKIPPED);
+        } else if (waiter != null) {
+            LockSupport.unpark((Thread) waiter);
+        }
+    }
+
+    private int index(long ticket) {
+        return (int) (ticket % cells.length);
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -1,29 +1,46 @@
 import javax.swing.*;
+import javax.swing.Timer;
 import java.awt.*;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public class GUI extends JFrame {
 
-    private JTextArea logArea;
+    private static final int LOG_LINES = Integer.getInteger("station.log.viewLines", 10_000);
+
+    private final LogListModel logModel = new LogListModel(LOG_LINES);
+    private JList<String> logList;
+    private JCheckBox followTail;
     private JLabel queueLabel, pumpsLabel;
     private JPanel pumpsPanel;
     private final Map<Integer, JLabel> pumpLabels = new HashMap<>();
-     
-    private int activePumps = 0; 
-    public synchronized void incrementActivePumps() {
-        activePumps++;
-        updatePumpCount(activePumps);
+    private static final Color FREE = new Color(144, 238, 144); // أخضر (فاضي)
+    private static final Color BUSY = new Color(255, 99, 71);   // أحمر (مشغول)
+    private static final int FRAMES_PER_SECOND = Integer.getInteger("station.gui.fps", 30);
+
+    // Pumps and cars only write here; the timer below paints it at a fixed rate.
+    private final StationStatus status;
+    private final String[] shownCars;
+    private int shownQueue = -1, shownActive = -1;
+
+    public void incrementActivePumps() {
+        status.incrementActivePumps();
     }
-    
-    
-    public synchronized void decrementActivePumps() {
-        if (activePumps > 0) activePumps--;
-        updatePumpCount(activePumps);
+
+    public void decrementActivePumps() {
+        status.decrementActivePumps();
+    }
+
+    public int activePumps() {
+        return status.activePumps();
     }
     
 
     public GUI(int numPumps) {
+        status = new StationStatus(numPumps);
+        shownCars = new String[numPumps];
         setTitle("Service Station Dashboard");
         setSize(750, 500);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -61,19 +78,58 @@ public class GUI extends JFrame {
         add(pumpsPanel, BorderLayout.CENTER);
 
         
-        logArea = new JTextArea();
-        logArea.setEditable(false);
-        logArea.setFont(new Font("Consolas", Font.PLAIN, 13));
-        logArea.setBackground(new Color(250, 250, 250));
-        logArea.setForeground(new Color(50, 50, 50));
-        JScrollPane logScroll = new JScrollPane(logArea);
-        logScroll.setBorder(BorderFactory.createTitledBorder("System Log"));
-        logScroll.setPreferredSize(new Dimension(750, 180));
-        add(logScroll, BorderLayout.EAST);
-
+        // A fixed cell size lets the JList lay out and paint only the visible rows.
+        logList = new JList<>(logModel);
+        logList.setFont(new Font("Consolas", Font.PLAIN, 13));
+        logList.setBackground(new Color(250, 250, 250));
+        logList.setForeground(new Color(50, 50, 50));
+        logList.setPrototypeCellValue("Pump 00: XXXXXXXXXXXX begins service at Bay 00");
+        JScrollPane logScroll = new JScrollPane(logList);
+
+        JPanel logPanel = new JPanel(new BorderLayout(5, 5));
+        logPanel.setBorder(BorderFactory.createTitledBorder("System Log"));
+        logPanel.setPreferredSize(new Dimension(750, 180));
+        logPanel.add(createLogFilters(numPumps), BorderLayout.NORTH);
+        logPanel.add(logScroll, BorderLayout.CENTER);
+        add(logPanel, BorderLayout.EAST);
+
+        new Timer(1000 / FRAMES_PER_SECOND, e -> refresh()).start();
         setVisible(true);
     }
 
+    private JPanel createLogFilters(int numPumps) {
+        JComboBox<String> pumpFilter = new JComboBox<>();
+        pumpFilter.addItem("All pumps");
+        for (int i = 1; i <= numPumps; i++) {
+            pumpFilter.addItem("Pump " + i);
+        }
+        JTextField carFilter = new JTextField(6);
+        carFilter.setToolTipText("Show only this car");
+        followTail = new JCheckBox("Follow tail", true);
+
+        Runnable applyFilter = () -> {
+            logModel.setFilter(pumpFilter.getSelectedIndex(), carFilter.getText());
+            scrollToTail();
+        };
+        pumpFilter.addActionListener(e -> applyFilter.run());
+        carFilter.addActionListener(e -> applyFilter.run());
+        followTail.addActionListener(e -> scrollToTail());
+
+        JPanel filters = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        filters.add(pumpFilter);
+        filters.add(new JLabel("Car:"));
+        filters.add(carFilter);
+        filters.add(followTail);
+        return filters;
+    }
+
+    private void scrollToTail() {
+        int size = logModel.getSize();
+        if (followTail.isSelected() && size > 0) {
+            logList.ensureIndexIsVisible(size - 1);
+        }
+    }
+
     private JLabel createStatusLabel(String text, Color color) {
         JLabel label = new JLabel(text, SwingConstants.CENTER);
         label.setFont(new Font("Arial", Font.BOLD, 20));
@@ -88,49 +144,110 @@ public class GUI extends JFrame {
         JLabel label = new JLabel("Pump " + id + " [FREE]", SwingConstants.CENTER);
         label.setFont(new Font("Segoe UI", Font.BOLD, 14));
         label.setOpaque(true);
-        label.setBackground(new Color(144, 238, 144)); // أخضر فاضي
+        label.setBackground(FREE);
         label.setBorder(BorderFactory.createLineBorder(Color.GRAY, 1));
         return label;
     }
 
     
     public void updateQueueSize(int size) {
-        SwingUtilities.invokeLater(() ->
-                queueLabel.setText("Queue: " + size)
-        );
+        status.setQueueSize(size);
     }
 
     public void updatePumpCount(int active) {
-        SwingUtilities.invokeLater(() ->
-                pumpsLabel.setText("Active Pumps: " + active)
-        );
+        status.setActivePumps(active);
     }
 
     public void setPumpBusy(int pumpId, String carName) {
-        SwingUtilities.invokeLater(() -> {
-            JLabel label = pumpLabels.get(pumpId);
-            if (label != null) {
-                label.setText("Pump " + pumpId + " --> " + carName);
-                label.setBackground(new Color(255, 99, 71)); // أحمر (مشغول)
-            }
-        });
+        status.setPumpBusy(pumpId, carName);
     }
 
     public void setPumpFree(int pumpId) {
-        SwingUtilities.invokeLater(() -> {
-            JLabel label = pumpLabels.get(pumpId);
-            if (label != null) {
-                label.setText("Pump " + pumpId + " [FREE]");
-                label.setBackground(new Color(144, 238, 144)); // أخضر (فاضي)
+        status.setPumpFree(pumpId);
+    }
+
+    /**
+     * The station's events as the dashboard shows them: the queue and pump panels, and the
+     * log lines through the Logger.
+     */
+    public StationEventSink events() {
+        return new StationEventSink() {
+            @Override
+            public void arrived(String car, long atNanos) {
+                Logger.log(car + " arrived");
             }
-        });
+
+            @Override
+            public void queued(String car, int queueLength, boolean pumpsBusy, long atNanos) {
+                updateQueueSize(queueLength);
+                if (pumpsBusy) {
+                    Logger.log(car + " arrived and waiting");
+                }
+            }
+
+            @Override
+            public void serviceStarted(int pumpId, String car, int queueLength, long atNanos) {
+                updateQueueSize(queueLength);
+                Logger.log("Pump " + pumpId + ": " + car + " Occupied");
+                Logger.log("Pump " + pumpId + ": " + car + " begins service at Bay " + pumpId);
+                setPumpBusy(pumpId, car);
+                incrementActivePumps();
+            }
+
+            @Override
+            public void serviceFinished(int pumpId, String car, long atNanos) {
+                setPumpFree(pumpId);
+                Logger.log("Pump " + pumpId + ": " + car + " finishes service");
+            }
+
+            @Override
+            public void bayFreed(int pumpId, long atNanos) {
+                decrementActivePumps();
+            }
+
+            @Override
+            public void flush() {
+                Logger.flush();
+            }
+        };
+    }
+
+    // Runs on the EDT every frame; labels are only touched when their value changed.
+    private void refresh() {
+        if (!status.takeChanges()) {
+            return;
+        }
+        int queue = status.queueSize();
+        if (queue != shownQueue) {
+            queueLabel.setText("Queue: " + queue);
+            shownQueue = queue;
+        }
+        int active = status.activePumps();
+        if (active != shownActive) {
+            pumpsLabel.setText("Active Pumps: " + active);
+            shownActive = active;
+        }
+        for (int pumpId = 1; pumpId <= shownCars.length; pumpId++) {
+            String car = status.pumpCar(pumpId);
+            if (!Objects.equals(car, shownCars[pumpId - 1])) {
+                JLabel label = pumpLabels.get(pumpId);
+                label.setText(car == null ? "Pump " + pumpId + " [FREE]" : "Pump " + pumpId + " --> " + car);
+                label.setBackground(car == null ? FREE : BUSY);
+                shownCars[pumpId - 1] = car;
+            }
+        }
     }
 
     
     public void addLog(String message) {
+        addLogs(List.of(message));
+    }
+
+    // One EDT task per batch from the Logger drain thread, and at most one scroll per batch.
+    public void addLogs(List<String> lines) {
         SwingUtilities.invokeLater(() -> {
-            logArea.append(message + "\n");
-            logArea.setCaretPosition(logArea.getDocument().getLength());
+            logModel.addAll(lines);
+            scrollToTail();
         });
     }
 }
@@ -0,0 +1,185 @@
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Puts a fast path in front of a waiting area: a pump that finds the area empty parks in
+ * a slot of its own, and the next car hands itself to that slot directly instead of going
+ * through the area's semaphores. Cars only queue in the area when no pump is idle.
+ *
+ * A handed-over car never takes a slot of the area, so {@link #size()} only counts the
+ * cars that are really waiting.
+ *
+ * A pump interrupted while a car is being handed to it passes the car on (to another idle
+ * pump, or into the area) and throws, so it does not start a service with the interrupt
+ * set. Only if neither takes the car does the pump keep it, with the interrupt still set.
+ */
+public class HandoffWaitingArea<E> implements WaitingArea<E> {
+    private static final Object CANCELLED = new Object(); // the pump stopped waiting in its slot
+    private static final Object RECHECK = new Object();   // a car went into the area, look there
+
+    private static final class Slot {
+        final Thread pump = Thread.currentThread();
+        final AtomicReference<Object> item = new AtomicReference<>();
+
+        boolean offer(Object car) {
+            if (item.compareAndSet(null, car)) {
+                LockSupport.unpark(pump);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private final WaitingArea<E> area;
+    private final ConcurrentLinkedQueue<Slot> idlePumps = new ConcurrentLinkedQueue<>();
+
+    public HandoffWaitingArea(WaitingArea<E> area) {
+        this.area = area;
+    }
+
+    /**
+     * The area behind the handoff, for callers that only take a car they know is there and
+     * must never park in {@link #take()}, such as the {@link PumpReactor}'s loop threads.
+     */
+    public WaitingArea<E> area() {
+        return area;
+    }
+
+    @Override
+    public void enter(E car) throws InterruptedException {
+        if (handOver(car)) {
+            return;
+        }
+        area.enter(car);
+        recheck();
+    }
+
+    @Override
+    public boolean tryEnter(E car) {
+        if (handOver(car)) {
+            return true;
+        }
+        if (!area.tryEnter(car)) {
+            return false;
+        }
+        recheck();
+        return true;
+    }
+
+    @Override
+    public boolean enter(E car, long timeout, TimeUnit unit) throws InterruptedException {
+        if (handOver(car)) {
+            return true;
+        }
+        if (!area.enter(car, timeout, unit)) {
+            return false;
+        }
+        recheck();
+        return true;
+    }
+
+    @Override
+    public E enterOrShed(E car) {
+        if (handOver(car)) {
+            return null;
+        }
+        E shed = area.enterOrShed(car);
+        if (shed != car) {
+            recheck();
+        }
+        return shed;
+    }
+
+    private boolean handOver(E car) {
+        Slot slot;
+        while ((slot = idlePumps.poll()) != null) {
+            if (slot.offer(car)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A pump may have gone idle after we looked and before the car was in the area
+    private void recheck() {
+        Slot slot;
+        while ((slot = idlePumps.poll()) != null) {
+            if (slot.offer(RECHECK)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E take() throws InterruptedException {
+        if (area.size() > 0) {
+            return area.take();
+        }
+        Slot slot = new Slot();
+        idlePumps.add(slot);
+        if (area.size() > 0 && slot.item.compareAndSet(null, CANCELLED)) {
+            idlePumps.remove(slot);
+            return area.take();
+        }
+        Object item;
+        while ((item = slot.item.get()) == null) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                if (slot.item.compareAndSet(null, CANCELLED)) {
+                    idlePumps.remove(slot);
+                    throw new InterruptedException();
+                }
+                // A car or a recheck arrived anyway
+                if (passOn(slot.item.get())) {
+                    throw new InterruptedException();
+                }
+                Thread.currentThread().interrupt();
+            }
+        }
+        return item == RECHECK || item == CANCELLED ? area.take() : (E) item;
+    }
+
+    // Gives what an interrupted pump was handed to another pump; false if the car has to stay with it.
+    @SuppressWarnings("unchecked")
+    private boolean passOn(Object item) {
+        if (item == RECHECK) {
+            recheck();
+            return true;
+        }
+        E car = (E) item;
+        if (handOver(car)) {
+            return true;
+        }
+        if (area.tryEnter(car)) {
+            recheck();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Batches only come from the area; a pump that finds it empty gets a single handed-over car.
+     */
+    @Override
+    public int takeBatch(List<? super E> batch, int max) throws InterruptedException {
+        if (area.size() > 0) {
+            return area.takeBatch(batch, max);
+        }
+        batch.add(take());
+        return 1;
+    }
+
+    @Override
+    public int size() {
+        return area.size();
+    }
+
+    @Override
+    public int capacity() {
+        return area.capacity();
+    }
+}
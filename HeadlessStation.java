@@ -0,0 +1,90 @@
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a station without a GUI or interactive prompts, streaming the cars from a file or
+ * standard input (see {@link WorkloadReader} for the format):
+ *
+ * <pre>
+ *   java HeadlessStation waitingAreaSize numberOfPumps [workload file, or - for stdin]
+ * </pre>
+ *
+ * Cars are read as they are due and at most station.readAhead of them are in the station
+ * at once, so memory use does not grow with the workload. With -Dstation.engine=discrete
+ * the workload is run through {@link DiscreteEventStation} instead, using the names only.
+ * With -Dstation.shards=N the cars are spread over a {@link StationCluster} of N stations
+ * of the given size each.
+ */
+public class HeadlessStation {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Usage: java HeadlessStation <waiting area capacity> <pumps> [workload file | -]");
+            return;
+        }
+        int waitingSize = Integer.parseInt(args[0]);
+        int numberOfPumps = Integer.parseInt(args[1]);
+        StationConfig config = StationConfig.fromSystemProperties();
+
+        try (WorkloadReader workload = WorkloadReader.open(args.length > 2 ? args[2] : "-")) {
+            if (config.engine() == StationConfig.Engine.DISCRETE) {
+                Iterator<String> names = new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return workload.hasNext();
+                    }
+
+                    @Override
+                    public String next() {
+                        return workload.next().name();
+                    }
+                };
+                System.out.println("Discrete-event run: " + new DiscreteEventStation(waitingSize, numberOfPumps, config).run(names));
+            } else {
+                ThreadedStation station = config.shards() > 1
+                        ? new StationCluster(config.shards(), waitingSize, numberOfPumps, config)
+                        : new ServiceStationConsole(waitingSize, numberOfPumps, config);
+                QueueStats stats = run(station, workload, config);
+                System.out.println("Threaded run: " + stats);
+            }
+        }
+    }
+
+    /**
+     * Feeds the workload to the station and shuts it down once the last car has left.
+     * Cars with an arrival time are added at that offset from the start; the others one
+     * {@link StationConfig#gapAfter} after the previous car.
+     */
+    static QueueStats run(ThreadedStation station, WorkloadReader workload, StationConfig config)
+            throws InterruptedException {
+        station.startPumps();
+        long start = System.nanoTime();
+        long due = 0; // millis after start
+        long added = 0;
+        while (workload.hasNext()) {
+            WorkloadReader.Arrival car = workload.next();
+            if (car.atMillis() >= 0) {
+                due = car.atMillis();
+            } else if (added > 0) {
+                due += config.gapAfter(added - 1, station.numberOfPumps());
+            }
+            long wait = TimeUnit.NANOSECONDS.toMillis(start + TimeUnit.MILLISECONDS.toNanos(due) - System.nanoTime());
+            if (wait > 0) {
+                Thread.sleep(wait);
+            }
+            station.awaitPendingAtMost(Math.max(0, config.readAhead() - 1), Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            String serviceClass = car.serviceClass();
+            station.addCar(car.name(), config.serviceMillis(serviceClass), config.priority(serviceClass));
+            added++;
+        }
+
+        if (station.awaitDrained(config.drainTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+            config.console().println("All " + added + " cars processed. Station closing.");
+        } else {
+            config.console().println(station.pendingCars() + " of " + added + " cars still in the station. Station closing.");
+        }
+        station.shutdown();
+        return station.stats();
+    }
+}
@@ -0,0 +1,158 @@
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A waiting area split into one lane per pump, so pumps do not all contend on one queue.
+ * Arriving cars are spread over the lanes, each pump serves its own lane from the front
+ * and, when it is empty, steals from the back of the other lanes.
+ *
+ * The capacity is still global: 'empty' counts the free slots of the whole area and
+ * 'full' the cars in all lanes, exactly as in {@link SemaphoreWaitingArea}. A pump thread
+ * is given a lane the first time it takes a car.
+ */
+public class LaneWaitingArea<E> implements WaitingArea<E> {
+
+    public enum Distribution {
+        ROUND_ROBIN,  // lanes in turn
+        LEAST_LOADED  // the lane with the fewest cars (default)
+    }
+
+    private static final class Lane<E> {
+        final ConcurrentLinkedDeque<E> cars = new ConcurrentLinkedDeque<>();
+        final AtomicInteger size = new AtomicInteger();
+    }
+
+    private final Lane<E>[] lanes;
+    private final Distribution distribution;
+    private final Semaphore empty; // available slots
+    private final Semaphore full = new Semaphore(0); // cars waiting, in any lane
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger nextLane = new AtomicInteger();  // round robin
+    private final AtomicInteger nextOwner = new AtomicInteger(); // lane of the next new pump thread
+    private final ThreadLocal<Integer> ownLane = ThreadLocal.withInitial(() -> nextOwner.getAndIncrement());
+    private final int capacity;
+
+    @SuppressWarnings("unchecked")
+    public LaneWaitingArea(int capacity, int lanes, Distribution distribution) {
+        this.capacity = capacity;
+        this.distribution = distribution;
+        this.lanes = (Lane<E>[]) new Lane<?>[Math.max(1, lanes)];
+        for (int i = 0; i < this.lanes.length; i++) {
+            this.lanes[i] = new Lane<>();
+        }
+        empty = new Semaphore(capacity);
+    }
+
+    @Override
+    public void enter(E car) throws InterruptedException {
+        empty.waiting();
+        insert(car);
+    }
+
+    @Override
+    public boolean tryEnter(E car) {
+        if (!empty.tryWaiting()) {
+            return false;
+        }
+        insert(car);
+        return true;
+    }
+
+    @Override
+    public boolean enter(E car, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!empty.waiting(timeout, unit)) {
+            return false;
+        }
+        insert(car);
+        return true;
+    }
+
+    // The caller holds an 'empty' permit for the car.
+    private void insert(E car) {
+        Lane<E> lane = lanes[pickLane()];
+        lane.cars.addLast(car);
+        lane.size.incrementAndGet();
+        size.incrementAndGet();
+        full.signal();
+    }
+
+    private int pickLane() {
+        if (distribution == Distribution.ROUND_ROBIN) {
+            return Math.floorMod(nextLane.getAndIncrement(), lanes.length);
+        }
+        int best = 0;
+        int bestSize = Integer.MAX_VALUE;
+        int start = Math.floorMod(nextLane.getAndIncrement(), lanes.length); // spread ties
+        for (int i = 0; i < lanes.length; i++) {
+            int index = (start + i) % lanes.length;
+            int laneSize = lanes[index].size.get();
+            if (laneSize < bestSize) {
+                best = index;
+                bestSize = laneSize;
+                if (laneSize == 0) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        full.waiting();
+        E car = claim();
+        size.decrementAndGet();
+        empty.signal();
+        return car;
+    }
+
+    @Override
+    public int takeBatch(List<? super E> batch, int max) throws InterruptedException {
+        int count = full.drain(max);
+        for (int i = 0; i < count; i++) {
+            batch.add(claim());
+        }
+        size.addAndGet(-count);
+        empty.signal(count);
+        return count;
+    }
+
+    // Removes one car, holding a 'full' permit for it: the pump's own lane first, then the
+    // other lanes from the back. Every permit stands for a car already in a lane, so the
+    // scan only repeats while other pumps take the cars it looked at.
+    private E claim() {
+        int own = Math.floorMod(ownLane.get(), lanes.length);
+        for (int spins = 0; ; spins++) {
+            E car = lanes[own].cars.pollFirst();
+            if (car != null) {
+                lanes[own].size.decrementAndGet();
+                return car;
+            }
+            for (int i = 1; i < lanes.length; i++) {
+                Lane<E> victim = lanes[(own + i) % lanes.length];
+                car = victim.cars.pollLast();
+                if (car != null) {
+                    victim.size.decrementAndGet();
+                    return car;
+                }
+            }
+            if (spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+}
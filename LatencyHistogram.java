@@ -0,0 +1,142 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of non-negative durations in nanoseconds, laid out like
+ * HdrHistogram: every power of two is split into 32 linear sub-buckets, so a recorded
+ * value is off by at most 1/32 (about 3%) from the value it is reported as.
+ *
+ * {@link #record(long)} is a few shifts and one atomic increment; it never allocates.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // Values below 2 * SUB_BUCKETS get a bucket each, then 32 buckets per power of two up to 2^63.
+    private static final int BUCKETS = 2 * SUB_BUCKETS + (63 - SUB_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.getAndIncrement(indexOf(value));
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sum.sum(), max.get());
+    }
+
+    static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return 2 * SUB_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // The largest value that lands in the bucket.
+    static long highestValueAt(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - 2 * SUB_BUCKETS) / SUB_BUCKETS + 1;
+        long top = (index - 2 * SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * The histogram at one point in time. Counts recorded while the snapshot was copied may
+     * or may not be included, but every count it holds is a real one.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public double meanMillis() {
+            return count == 0 ? 0 : sum / 1e6 / count;
+        }
+
+        public double maxMillis() {
+            return max / 1e6;
+        }
+
+        /**
+         * @param percentile Between 0 and 100.
+         * @return The value at or below which the given share of the recorded values fall.
+         */
+        public double percentileMillis(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueAt(i), max) / 1e6;
+                }
+            }
+            return max / 1e6;
+        }
+
+        /**
+         * The histogram of both snapshots' values together, as if they had been recorded into one.
+         */
+        public Snapshot merge(Snapshot other) {
+            long[] merged = counts.clone();
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] += other.counts[i];
+            }
+            return new Snapshot(merged, count + other.count, sum + other.sum, Math.max(max, other.max));
+        }
+
+        /**
+         * The values recorded after an earlier snapshot of the same histogram was taken.
+         * Their maximum is only known to the precision of its bucket.
+         */
+        public Snapshot since(Snapshot earlier) {
+            long[] recent = new long[counts.length];
+            int highest = -1;
+            for (int i = 0; i < recent.length; i++) {
+                recent[i] = Math.max(0, counts[i] - earlier.counts[i]);
+                if (recent[i] > 0) {
+                    highest = i;
+                }
+            }
+            long recentCount = Math.max(0, count - earlier.count);
+            long recentMax = highest < 0 ? 0 : Math.min(highestValueAt(highest), max);
+            return new Snapshot(recent, recentCount, Math.max(0, sum - earlier.sum), recentMax);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d mean=%.1f p50=%.1f p90=%.1f p99=%.1f max=%.1f ms",
+                    count, meanMillis(), percentileMillis(50), percentileMillis(90), percentileMillis(99), maxMillis());
+        }
+    }
+}
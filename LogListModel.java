@@ -0,0 +1,123 @@
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.AbstractListModel;
+
+/**
+ * List model behind the GUI log: the last {@code capacity} lines in a fixed ring, plus a second
+ * ring with the lines that pass the current pump/car filter. Memory stays constant however long
+ * the run is, and a JList with a fixed cell size only renders the rows that are visible.
+ * Only used on the EDT.
+ */
+public class LogListModel extends AbstractListModel<String> {
+
+    private static final class Ring {
+        private final String[] lines;
+        private int start;
+        private int size;
+
+        Ring(int capacity) {
+            lines = new String[Math.max(1, capacity)];
+        }
+
+        // Returns true when the oldest line had to make room.
+        boolean add(String line) {
+            if (size < lines.length) {
+                lines[(start + size++) % lines.length] = line;
+                return false;
+            }
+            lines[start] = line;
+            start = (start + 1) % lines.length;
+            return true;
+        }
+
+        String get(int index) {
+            return lines[(start + index) % lines.length];
+        }
+
+        void clear() {
+            Arrays.fill(lines, null);
+            start = 0;
+            size = 0;
+        }
+    }
+
+    private final Ring all;
+    private final Ring shown;
+    private String pumpPrefix; // "Pump 3" or null for every pump
+    private String car = "";   // "" for every car
+
+    public LogListModel(int capacity) {
+        all = new Ring(capacity);
+        shown = new Ring(capacity);
+    }
+
+    public void addAll(List<String> lines) {
+        int before = shown.size;
+        boolean evicted = false;
+        for (String line : lines) {
+            all.add(line);
+            if (matches(line)) {
+                evicted |= shown.add(line);
+            }
+        }
+        if (evicted) {
+            fireContentsChanged(this, 0, shown.size - 1);
+        } else if (shown.size > before) {
+            fireIntervalAdded(this, before, shown.size - 1);
+        }
+    }
+
+    /**
+     * @param pumpId Only show lines of this pump, or 0 for all pumps.
+     * @param carName Only show lines mentioning this car, or "" for all cars.
+     */
+    public void setFilter(int pumpId, String carName) {
+        pumpPrefix = pumpId > 0 ? "Pump " + pumpId : null;
+        car = carName == null ? "" : carName.trim();
+        int before = shown.size;
+        shown.clear();
+        for (int i = 0; i < all.size; i++) {
+            String line = all.get(i);
+            if (matches(line)) {
+                shown.add(line);
+            }
+        }
+        if (before > 0) {
+            fireIntervalRemoved(this, 0, before - 1);
+        }
+        if (shown.size > 0) {
+            fireIntervalAdded(this, 0, shown.size - 1);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return shown.size;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        return shown.get(index);
+    }
+
+    private boolean matches(String line) {
+        if (pumpPrefix != null && !(line.startsWith(pumpPrefix)
+                && line.length() > pumpPrefix.length() && !Character.isDigit(line.charAt(pumpPrefix.length())))) {
+            return false;
+        }
+        return car.isEmpty() || containsWord(line, car);
+    }
+
+    // "C1" must not match "C12": the name has to stand on its own.
+    private static boolean containsWord(String line, String word) {
+        for (int i = line.indexOf(word); i >= 0; i = line.indexOf(word, i + 1)) {
+            int end = i + word.length();
+            boolean startsWord = i == 0 || !Character.isLetterOrDigit(line.charAt(i - 1));
+            boolean endsWord = end == line.length() || !Character.isLetterOrDigit(line.charAt(end));
+            if (startsWord && endsWord) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,46 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Receives log lines from the Logger drain thread, a batch at a time.
+ * The list belongs to the sink, which may keep it (e.g. to hand it to the EDT).
+ */
+public interface LogSink {
+
+    void write(List<String> lines);
+
+    static LogSink console() {
+        return lines -> {
+            StringBuilder text = new StringBuilder();
+            for (String line : lines) {
+                text.append(line).append(System.lineSeparator());
+            }
+            System.out.print(text);
+        };
+    }
+
+    /**
+     * Appends to the file, flushing after every batch.
+     */
+    static LogSink file(Path path) throws IOException {
+        BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return lines -> {
+            try {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
@@ -1,13 +1,170 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous log pipeline. log() only appends the line to a lock-free ring; a single
+ * daemon thread drains it in batches and hands every batch to the sinks (GUI, console, file).
+ *
+ * When the ring is full the overflow policy decides what happens:
+ * BLOCK makes the caller wait for room, DROP_OLDEST discards the oldest queued line,
+ * SAMPLE keeps one overflowing line in sampleRate (replacing the oldest) and drops the rest.
+ * Configured with -Dstation.log.capacity, -Dstation.log.overflow, -Dstation.log.sampleRate,
+ * and extra sinks with -Dstation.log.console=true and -Dstation.log.file=path.
+ */
 public class Logger {
-    private static GUI gui;
+    public enum Overflow { BLOCK, DROP_OLDEST, SAMPLE }
+
+    private static final int BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = 50_000_000L;
+
+    private static final ConcurrentRing<String> buffer =
+            new ConcurrentRing<>(Integer.getInteger("station.log.capacity", 8192));
+    private static final List<LogSink> sinks = new CopyOnWriteArrayList<>();
+    private static final AtomicLong accepted = new AtomicLong();  // lines that made it into the ring
+    private static final AtomicLong delivered = new AtomicLong(); // lines handed to the sinks
+    private static final AtomicLong evicted = new AtomicLong();   // queued lines pushed out by DROP_OLDEST/SAMPLE
+    private static final AtomicLong rejected = new AtomicLong();  // lines that never got queued
+    private static final AtomicLong overflows = new AtomicLong();
+    private static volatile Overflow overflow = Overflow.valueOf(
+            System.getProperty("station.log.overflow", "block").trim().toUpperCase());
+    private static volatile int sampleRate = Math.max(1, Integer.getInteger("station.log.sampleRate", 10));
+    private static volatile boolean drainerParked;
+    private static LogSink guiSink;
+    private static final Thread drainer = startDrainer();
+
+    static {
+        if (Boolean.getBoolean("station.log.console")) {
+            addSink(LogSink.console());
+        }
+        String file = System.getProperty("station.log.file");
+        if (file != null) {
+            try {
+                addSink(LogSink.file(Path.of(file)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open log file " + file, e);
+            }
+        }
+    }
+
+    public static synchronized void setGUI(GUI guiInstance) {
+        if (guiSink != null) {
+            sinks.remove(guiSink);
+        }
+        guiSink = guiInstance::addLogs;
+        sinks.add(guiSink);
+    }
+
+    public static void addSink(LogSink sink) {
+        sinks.add(sink);
+    }
+
+    public static void setOverflowPolicy(Overflow policy, int sampleOneIn) {
+        overflow = policy;
+        sampleRate = Math.max(1, sampleOneIn);
+    }
+
+    public static void log(String message) {
+        if (!buffer.offer(message)) {
+            overflow(message);
+            return;
+        }
+        accepted.incrementAndGet();
+        wakeDrainer();
+    }
+
+    /**
+     * Lines lost to the overflow policy so far.
+     */
+    public static long dropped() {
+        return rejected.get() + evicted.get();
+    }
+
+    /**
+     * Waits until every line logged before this call has been handed to the sinks.
+     */
+    public static void flush() {
+        long target = accepted.get();
+        while (delivered.get() + evicted.get() < target) {
+            wakeDrainer();
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    private static void overflow(String message) {
+        switch (overflow) {
+            case SAMPLE:
+                if (overflows.getAndIncrement() % sampleRate != 0) {
+                    rejected.incrementAndGet();
+                    return;
+                }
+                replaceOldest(message);
+                break;
+            case DROP_OLDEST:
+                replaceOldest(message);
+                break;
+            case BLOCK:
+            default:
+                while (!buffer.offer(message)) {
+                    wakeDrainer();
+                    LockSupport.parkNanos(100_000);
+                }
+                accepted.incrementAndGet();
+                break;
+        }
+        wakeDrainer();
+    }
+
+    private static void replaceOldest(String message) {
+        while (!buffer.offer(message)) {
+            if (buffer.poll() != null) {
+                evicted.incrementAndGet();
+            }
+        }
+        accepted.incrementAndGet();
+    }
+
+    private static void wakeDrainer() {
+        if (drainerParked) {
+            LockSupport.unpark(drainer);
+        }
+    }
 
-    public static void setGUI(GUI guiInstance) {
-        gui = guiInstance;
+    private static Thread startDrainer() {
+        Thread thread = new Thread(Logger::drain, "Logger");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
     }
 
-    public static synchronized void log(String message) {
-        if (gui != null) {
-            gui.addLog(message);
+    private static void drain() {
+        while (true) {
+            List<String> batch = new ArrayList<>();
+            String line;
+            while (batch.size() < BATCH_SIZE && (line = buffer.poll()) != null) {
+                batch.add(line);
+            }
+            if (batch.isEmpty()) {
+                drainerParked = true;
+                if (buffer.size() == 0) { // re-check: a line may have arrived before the flag was visible
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                drainerParked = false;
+                continue;
+            }
+            for (LogSink sink : sinks) {
+                try {
+                    sink.write(batch);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+            delivered.addAndGet(batch.size());
         }
     }
 }
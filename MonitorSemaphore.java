@@ -0,0 +1,44 @@
+/**
+ * The original monitor-based semaphore: a synchronized counter with wait()/notifyAll().
+ * Kept as the reference to compare the CAS based {@link Semaphore} against.
+ * The console version used notify() instead, which is what {@code wakeAll = false} selects.
+ */
+public class MonitorSemaphore {
+    private int value;
+    private final boolean wakeAll;
+
+    public MonitorSemaphore() {
+        this(0);
+    }
+
+    public MonitorSemaphore(int val) {
+        this(val, true);
+    }
+
+    public MonitorSemaphore(int val, boolean wakeAll) {
+        value = val;
+        this.wakeAll = wakeAll;
+    }
+
+    // Wait operation 'p' ,'acquire'
+    public synchronized void waiting() throws InterruptedException {
+        while (value <= 0) {
+            wait();
+        }
+        value--;
+    }
+
+    // Signal operation 'v','release'
+    public synchronized void signal() {
+        value++;
+        if (wakeAll) {
+            notifyAll();
+        } else {
+            notify();
+        }
+    }
+
+    public synchronized int get() {
+        return value;
+    }
+}
@@ -0,0 +1,212 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Grows and shrinks a station's pump pool with the load. Every interval it looks at the
+ * cars waiting per pump and at a percentile of the queue waits since its last look, and
+ * adds a pump when either is above the scale-up threshold, or retires one when both are
+ * below the scale-down threshold (see {@link StationConfig#scaleUpAt} and
+ * {@link StationConfig#scaleDownAt}).
+ *
+ * Flapping is kept down three ways: the two thresholds are apart, a threshold must hold
+ * for several looks in a row, and after a change the pool is left alone for a cooldown.
+ * Every change is reported as a {@link ScalingEvent}.
+ */
+public class PumpAutoscaler {
+
+    /**
+     * What the autoscaler needs from a station.
+     */
+    public interface Pool {
+        int activePumps();
+
+        /**
+         * Cars in the waiting area right now.
+         */
+        int queueLength();
+
+        /**
+         * All queue waits recorded so far; the autoscaler takes the difference itself.
+         */
+        LatencyHistogram.Snapshot queueWait();
+
+        /**
+         * Starts one more pump and gives it a bay.
+         * @return false if there is no room for one.
+         */
+        boolean addPump();
+
+        /**
+         * Lets one pump finish its car and stop, and takes its bay away.
+         * @return false if there is no pump to retire.
+         */
+        boolean retirePump();
+    }
+
+    public static final class ScalingEvent {
+        private final long atNanos;
+        private final int fromPumps;
+        private final int toPumps;
+        private final int queueLength;
+        private final double waitMillis;
+        private final String reason;
+
+        ScalingEvent(long atNanos, int fromPumps, int toPumps, int queueLength, double waitMillis, String reason) {
+            this.atNanos = atNanos;
+            this.fromPumps = fromPumps;
+            this.toPumps = toPumps;
+            this.queueLength = queueLength;
+            this.waitMillis = waitMillis;
+            this.reason = reason;
+        }
+
+        /**
+         * System.nanoTime() of the decision.
+         */
+        public long atNanos() {
+            return atNanos;
+        }
+
+        public int fromPumps() {
+            return fromPumps;
+        }
+
+        public int toPumps() {
+            return toPumps;
+        }
+
+        public boolean scaledUp() {
+            return toPumps > fromPumps;
+        }
+
+        /**
+         * Cars waiting when the decision was made.
+         */
+        public int queueLength() {
+            return queueLength;
+        }
+
+        /**
+         * The queue wait percentile the decision was based on.
+         */
+        public double waitMillis() {
+            return waitMillis;
+        }
+
+        public String reason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Autoscaler: %d -> %d pumps (%s; %d waiting, wait %.1f ms)",
+                    fromPumps, toPumps, reason, queueLength, waitMillis);
+        }
+    }
+
+    private final Pool pool;
+    private final StationConfig config;
+    private final int minPumps;
+    private final int maxPumps;
+    private final List<Consumer<ScalingEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final List<ScalingEvent> events = new CopyOnWriteArrayList<>();
+    private final String threadName;
+    private ScheduledExecutorService timer;
+    // Only touched by tick(), which runs on the timer thread
+    private LatencyHistogram.Snapshot lastWaits;
+    private long lastChange;
+    private int upTicks;
+    private int downTicks;
+
+    public PumpAutoscaler(Pool pool, StationConfig config, int minPumps, int maxPumps, String threadName) {
+        this.pool = pool;
+        this.config = config;
+        this.minPumps = minPumps;
+        this.maxPumps = maxPumps;
+        this.threadName = threadName;
+    }
+
+    /**
+     * Called with every change of the pool, on the autoscaler's thread.
+     */
+    public void addListener(Consumer<ScalingEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Every change made so far, oldest first.
+     */
+    public List<ScalingEvent> events() {
+        return List.copyOf(events);
+    }
+
+    public synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+        lastWaits = pool.queueWait();
+        lastChange = System.nanoTime();
+        timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name(threadName).daemon().factory());
+        timer.scheduleWithFixedDelay(this::safeTick, config.scaleIntervalMillis(), config.scaleIntervalMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            try {
+                timer.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void safeTick() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            System.err.println(Thread.currentThread().getName() + ": autoscaling failed: " + e);
+        }
+    }
+
+    // One look at the station.
+    void tick() {
+        long now = System.nanoTime();
+        int pumps = pool.activePumps();
+        int queued = pool.queueLength();
+        LatencyHistogram.Snapshot waits = pool.queueWait();
+        double wait = waits.since(lastWaits).percentileMillis(config.scalePercentile());
+        lastWaits = waits;
+
+        boolean queueHigh = queued > config.scaleUpQueue() * pumps;
+        boolean waitHigh = wait > config.scaleUpWaitMillis();
+        boolean low = queued <= config.scaleDownQueue() * pumps && wait < config.scaleDownWaitMillis();
+        upTicks = queueHigh || waitHigh ? upTicks + 1 : 0;
+        downTicks = low ? downTicks + 1 : 0;
+
+        if (now - lastChange < TimeUnit.MILLISECONDS.toNanos(config.scaleCooldownMillis())) {
+            return;
+        }
+        if (upTicks >= config.scaleTicks() && pumps < maxPumps && pool.addPump()) {
+            changed(now, pumps, pumps + 1, queued, wait, queueHigh ? "queue above threshold" : "wait above threshold");
+        } else if (downTicks >= config.scaleTicks() && pumps > minPumps && pool.retirePump()) {
+            changed(now, pumps, pumps - 1, queued, wait, "queue and wait below thresholds");
+        }
+    }
+
+    private void changed(long now, int from, int to, int queued, double wait, String reason) {
+        lastChange = now;
+        upTicks = 0;
+        downTicks = 0;
+        ScalingEvent event = new ScalingEvent(now, from, to, queued, wait, reason);
+        events.add(event);
+        for (Consumer<ScalingEvent> listener : listeners) {
+            listener.accept(event);
+        }
+    }
+}
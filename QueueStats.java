@@ -0,0 +1,142 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queueing statistics of one run, recorded the same way by the threaded station and by
+ * {@link DiscreteEventStation} so that the two engines can be compared.
+ * All timestamps are nanoseconds on the engine's own clock.
+ */
+public class QueueStats {
+    private volatile long origin;
+    private final LongAdder served = new LongAdder();
+    private final LongAdder totalWait = new LongAdder();
+    private final LongAccumulator maxWait = new LongAccumulator(Math::max, 0);
+    private final LongAdder totalService = new LongAdder();
+    private final LongAccumulator maxQueue = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator lastFinish = new LongAccumulator(Math::max, 0);
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder balked = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    /**
+     * Marks the clock value at which the run started; 0 unless called.
+     */
+    public void start(long origin) {
+        this.origin = origin;
+        lastFinish.accumulate(origin);
+    }
+
+    /**
+     * Called when a car has entered the waiting area.
+     * @param size The number of cars in the waiting area right after it entered.
+     */
+    public void recordQueueLength(int size) {
+        maxQueue.accumulate(size);
+    }
+
+    /**
+     * Called when a pump has finished a car.
+     * @param arrivedAt When the car reached the waiting area.
+     * @param startedAt When the pump began service.
+     * @param finishedAt When the pump finished service.
+     */
+    public void recordService(long arrivedAt, long startedAt, long finishedAt) {
+        long wait = startedAt - arrivedAt;
+        served.increment();
+        totalWait.add(wait);
+        maxWait.accumulate(wait);
+        totalService.add(finishedAt - startedAt);
+        lastFinish.accumulate(finishedAt);
+    }
+
+    /**
+     * Called when a car was turned away on arrival because the waiting area was full.
+     */
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * Called when a car gave up waiting for a slot in the waiting area.
+     */
+    public void recordBalked() {
+        balked.increment();
+    }
+
+    /**
+     * Called when a waiting car was turned away to make room for one of higher priority.
+     */
+    public void recordShed() {
+        shed.increment();
+    }
+
+    /**
+     * Adds another run's statistics to these, for stations that ran side by side: the
+     * combined run started when the earliest of them did and ended with the last car.
+     */
+    public void merge(QueueStats other) {
+        if (origin == 0 || other.origin != 0 && other.origin < origin) {
+            origin = other.origin;
+        }
+        served.add(other.served.sum());
+        totalWait.add(other.totalWait.sum());
+        maxWait.accumulate(other.maxWait.get());
+        totalService.add(other.totalService.sum());
+        maxQueue.accumulate(other.maxQueue.get());
+        lastFinish.accumulate(other.lastFinish.get());
+        rejected.add(other.rejected.sum());
+        balked.add(other.balked.sum());
+        shed.add(other.shed.sum());
+    }
+
+    public long served() {
+        return served.sum();
+    }
+
+    public double meanWaitMillis() {
+        long n = served.sum();
+        return n == 0 ? 0 : totalWait.sum() / 1e6 / n;
+    }
+
+    public double maxWaitMillis() {
+        return maxWait.get() / 1e6;
+    }
+
+    public double meanServiceMillis() {
+        long n = served.sum();
+        return n == 0 ? 0 : totalService.sum() / 1e6 / n;
+    }
+
+    public long maxQueueLength() {
+        return maxQueue.get();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    public long balked() {
+        return balked.sum();
+    }
+
+    public long shed() {
+        return shed.sum();
+    }
+
+    /**
+     * Time from the start of the run until the last car left its bay.
+     */
+    public double elapsedMillis() {
+        return Math.max(0, lastFinish.get() - origin) / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        String summary = String.format("cars served: %d, mean wait: %.1f ms, max wait: %.1f ms, mean service: %.1f ms, "
+                        + "max queue: %d, elapsed: %.1f ms",
+                served(), meanWaitMillis(), maxWaitMillis(), meanServiceMillis(), maxQueueLength(), elapsedMillis());
+        long turnedAway = rejected() + balked() + shed();
+        return turnedAway == 0 ? summary
+                : summary + String.format(", rejected: %d, balked: %d, shed: %d", rejected(), balked(), shed());
+    }
+}
@@ -0,0 +1,130 @@
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Array-backed multi-producer/multi-consumer ring buffer.
+ *
+ * Every cell carries a sequence number: a producer may write cell (pos % n) once its
+ * sequence equals pos, a consumer may read it once it equals pos + 1, and the consumer
+ * hands it back to the next lap by setting it to pos + n. Producers and consumers claim
+ * positions with an atomic increment on tail/head, so there is no shared lock and no
+ * allocation per car. The 'empty' and 'full' semaphores only count slots and cars.
+ */
+public class RingBufferWaitingArea<E> implements WaitingArea<E> {
+    private final Object[] cells;
+    private final AtomicLongArray sequence;
+    private final AtomicLong head = new AtomicLong(); // next position a pump takes
+    private final AtomicLong tail = new AtomicLong(); // next position a car enters
+    private final Semaphore empty; // available slots
+    private final Semaphore full;  // cars waiting
+    private final int capacity;
+
+    public RingBufferWaitingArea(int capacity) {
+        this.capacity = capacity;
+        int length = Math.max(1, capacity);
+        cells = new Object[length];
+        sequence = new AtomicLongArray(length);
+        for (int i = 0; i < length; i++) {
+            sequence.set(i, i);
+        }
+        empty = new Semaphore(capacity);
+        full = new Semaphore(0);
+    }
+
+    @Override
+    public void enter(E car) throws InterruptedException {
+        empty.waiting();
+        insert(car);
+    }
+
+    @Override
+    public boolean tryEnter(E car) {
+        if (!empty.tryWaiting()) {
+            return false;
+        }
+        insert(car);
+        return true;
+    }
+
+    @Override
+    public boolean enter(E car, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!empty.waiting(timeout, unit)) {
+            return false;
+        }
+        insert(car);
+        return true;
+    }
+
+    // The caller holds an 'empty' permit for the car.
+    private void insert(E car) {
+        long pos = tail.getAndIncrement();
+        int index = (int) (pos % cells.length);
+        // The permit guarantees the cell is free or about to be: a pump that claimed it
+        // on the previous lap may still be reading it.
+        for (int spins = 0; sequence.get(index) != pos; spins++) {
+            backOff(spins);
+        }
+        cells[index] = car;
+        sequence.set(index, pos + 1);
+        full.signal();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E take() throws InterruptedException {
+        full.waiting();
+        long pos = head.getAndIncrement();
+        int index = (int) (pos % cells.length);
+        // The car that owns this position may still be writing into the cell.
+        for (int spins = 0; sequence.get(index) != pos + 1; spins++) {
+            backOff(spins);
+        }
+        E car = (E) cells[index];
+        cells[index] = null;
+        sequence.set(index, pos + cells.length);
+        empty.signal();
+        return car;
+    }
+
+    /**
+     * Claims the cars with one semaphore acquire and one move of head for the whole batch.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int takeBatch(List<? super E> batch, int max) throws InterruptedException {
+        int count = full.drain(max);
+        long first = head.getAndAdd(count);
+        for (long pos = first; pos < first + count; pos++) {
+            int index = (int) (pos % cells.length);
+            for (int spins = 0; sequence.get(index) != pos + 1; spins++) {
+                backOff(spins);
+            }
+            batch.add((E) cells[index]);
+            cells[index] = null;
+            sequence.set(index, pos + cells.length);
+        }
+        empty.signal(count);
+        return count;
+    }
+
+    // The other side is mid-copy and finishes in a few instructions, unless it was descheduled.
+    private static void backOff(int spins) {
+        if (spins < 100) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,224 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Counting semaphore backed by an atomic permit count.
+ *
+ * waiting() first tries to take a permit with a single CAS, then spins for a short,
+ * adaptive number of rounds, and only then parks in a FIFO list of waiters. signal()
+ * adds a permit and unparks only the oldest waiter, instead of waking every thread
+ * blocked on the monitor like the old wait()/notifyAll() version (see MonitorSemaphore).
+ *
+ * The bulk forms take or give several permits with one CAS. signal(n) still wakes only
+ * the oldest waiter; each waiter that gets its permits wakes the next one while permits
+ * are left, so n permits never cost n unparks up front. Parked waiters are served in
+ * order, so one waiting for many permits holds up those behind it until it has them all.
+ *
+ * A fair semaphore never lets a thread barge: while anybody is parked, new callers queue
+ * behind them instead of taking a free permit or spinning for one, so permits go out
+ * strictly in the order the threads asked. That costs the throughput barging buys.
+ */
+public class Semaphore {
+    private static final int MAX_SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 256 : 0;
+    private static final int MIN_SPINS = 4;
+    private static final long FOREVER = 0;
+
+    private final AtomicInteger value;
+    private final boolean fair;
+    private final ConcurrentLinkedQueue<Thread> waiters = new ConcurrentLinkedQueue<>();
+    // Grows when spinning pays off and shrinks when it does not. Racy on purpose: it is only a hint.
+    private int spins = MAX_SPINS == 0 ? 0 : MIN_SPINS;
+
+    public Semaphore() {
+        this(0);
+    }
+
+    public Semaphore(int val) {
+        this(val, false);
+    }
+
+    /**
+     * @param fair Whether permits go to the threads strictly in the order they asked.
+     */
+    public Semaphore(int val, boolean fair) {
+        value = new AtomicInteger(val);
+        this.fair = fair;
+    }
+
+    // Wait operation 'p' ,'acquire'
+    public void waiting() throws InterruptedException {
+        acquire(1, 1, FOREVER);
+    }
+
+    /**
+     * Waits until n permits are free and takes them all at once.
+     */
+    public void waiting(int n) throws InterruptedException {
+        if (n > 0) {
+            acquire(n, n, FOREVER);
+        }
+    }
+
+    /**
+     * Takes a permit if one is free, without waiting.
+     * @return false if none was.
+     */
+    public boolean tryWaiting() {
+        return tryBarge(1, 1) > 0;
+    }
+
+    /**
+     * Takes n permits if that many are free, without waiting.
+     * @return false if they were not; then none are taken.
+     */
+    public boolean tryWaiting(int n) {
+        return n <= 0 || tryBarge(n, n) > 0;
+    }
+
+    /**
+     * Like {@link #waiting()}, but gives up once the timeout has elapsed.
+     * @return false if no permit was taken.
+     */
+    public boolean waiting(long timeout, TimeUnit unit) throws InterruptedException {
+        if (tryBarge(1, 1) > 0) {
+            return true;
+        }
+        long nanos = unit.toNanos(timeout);
+        if (nanos <= 0) {
+            return false;
+        }
+        return acquire(1, 1, Math.min(nanos, Long.MAX_VALUE / 4)) > 0; // a far deadline must not overflow nanoTime
+    }
+
+    /**
+     * Waits until at least one permit is free, then takes as many as are free, up to max.
+     * The blocking counterpart of {@link #drainUpTo(int)}, for claiming a batch.
+     * @return How many were taken, between 1 and max.
+     */
+    public int drain(int max) throws InterruptedException {
+        return acquire(1, Math.max(1, max), FOREVER);
+    }
+
+    // Signal operation 'v','release'
+    public void signal() {
+        value.incrementAndGet();
+        unparkOldest();
+    }
+
+    /**
+     * Gives back n permits with one update and one wakeup.
+     */
+    public void signal(int n) {
+        if (n > 0) {
+            value.addAndGet(n);
+            unparkOldest();
+        }
+    }
+
+    /**
+     * The free permits at this moment; may be out of date as soon as it returns.
+     */
+    public int get() {
+        return value.get();
+    }
+
+    /**
+     * Takes as many permits as are free, up to max, without waiting.
+     * @return How many were taken, possibly 0.
+     */
+    public int drainUpTo(int max) {
+        return max > 0 ? tryBarge(1, max) : 0;
+    }
+
+    // Returns how many permits were taken, 0 only if the timeout elapsed.
+    private int acquire(int min, int max, long nanos) throws InterruptedException {
+        int taken = tryBarge(min, max);
+        if (taken > 0) {
+            return taken;
+        }
+        taken = fair ? 0 : spin(min, max);
+        if (taken > 0) {
+            return taken;
+        }
+        return park(min, max, nanos);
+    }
+
+    // A thread that is not parked yet may only take permits ahead of the parked ones if unfair.
+    private int tryBarge(int min, int max) {
+        return !fair || waiters.isEmpty() ? tryTake(min, max) : 0;
+    }
+
+    // Takes between min and max permits if at least min are free.
+    private int tryTake(int min, int max) {
+        int current;
+        while ((current = value.get()) >= min) {
+            int taken = Math.min(current, max);
+            if (value.compareAndSet(current, current - taken)) {
+                return taken;
+            }
+        }
+        return 0;
+    }
+
+    private int spin(int min, int max) {
+        int limit = spins;
+        for (int i = 0; i < limit; i++) {
+            Thread.onSpinWait();
+            if (value.get() >= min) {
+                int taken = tryTake(min, max);
+                if (taken > 0) {
+                    spins = Math.min(MAX_SPINS, limit * 2);
+                    return taken;
+                }
+            }
+        }
+        spins = Math.max(MAX_SPINS == 0 ? 0 : MIN_SPINS, limit / 2);
+        return 0;
+    }
+
+    // Waits for ever when nanos is FOREVER.
+    private int park(int min, int max, long nanos) throws InterruptedException {
+        Thread current = Thread.currentThread();
+        long deadline = System.nanoTime() + nanos;
+        waiters.add(current);
+        try {
+            while (true) {
+                // Only the oldest waiter may take permits, so parked threads are served in FIFO order.
+                if (waiters.peek() == current) {
+                    int taken = tryTake(min, max);
+                    if (taken > 0) {
+                        return taken;
+                    }
+                }
+                if (nanos == FOREVER) {
+                    LockSupport.park(this);
+                } else {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) {
+                        return 0;
+                    }
+                    LockSupport.parkNanos(this, left);
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            waiters.remove(current);
+            // Pass the wakeup on if permits are left, either because several signals arrived
+            // together or because we were interrupted or timed out after being chosen.
+            if (value.get() > 0) {
+                unparkOldest();
+            }
+        }
+    }
+
+    private void unparkOldest() {
+        Thread oldest = waiters.peek();
+        if (oldest != null) {
+            LockSupport.unpark(oldest);
+        }
+    }
+}
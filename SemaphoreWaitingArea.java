@@ -0,0 +1,122 @@
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The original bounded buffer: a LinkedList guarded by the mutex/empty/full semaphores.
+ * Kept as the reference mode to compare against {@link RingBufferWaitingArea}.
+ */
+public class SemaphoreWaitingArea<E> implements WaitingArea<E> {
+    private final Queue<E> waitingQueue = new LinkedList<>();
+    private final Semaphore mutex = new Semaphore(1);
+    private final Semaphore empty; // available slots
+    private final Semaphore full = new Semaphore(0); // cars waiting
+    private final int capacity;
+    private volatile int size;
+
+    public SemaphoreWaitingArea(int capacity) {
+        this.capacity = capacity;
+        empty = new Semaphore(capacity);
+    }
+
+    @Override
+    public void enter(E car) throws InterruptedException {
+        empty.waiting();
+        insert(car);
+    }
+
+    @Override
+    public boolean tryEnter(E car) {
+        if (!empty.tryWaiting()) {
+            return false;
+        }
+        try {
+            insert(car);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public boolean enter(E car, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!empty.waiting(timeout, unit)) {
+            return false;
+        }
+        insert(car);
+        return true;
+    }
+
+    // The caller holds an 'empty' permit for the car, which is given back if it is interrupted.
+    private void insert(E car) throws InterruptedException {
+        try {
+            mutex.waiting();
+        } catch (InterruptedException e) {
+            empty.signal();
+            throw e;
+        }
+        try {
+            waitingQueue.add(car);
+            size = waitingQueue.size();
+        } finally {
+            mutex.signal();
+        }
+        full.signal();
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        full.waiting();
+        try {
+            mutex.waiting();
+        } catch (InterruptedException e) {
+            full.signal(); // the car stays for the next pump
+            throw e;
+        }
+        E car;
+        try {
+            car = waitingQueue.poll();
+            size = waitingQueue.size();
+        } finally {
+            mutex.signal();
+        }
+        empty.signal();
+        return car;
+    }
+
+    /**
+     * Moves the batch under a single acquire of the mutex.
+     */
+    @Override
+    public int takeBatch(List<? super E> batch, int max) throws InterruptedException {
+        int count = full.drain(max);
+        try {
+            mutex.waiting();
+        } catch (InterruptedException e) {
+            full.signal(count);
+            throw e;
+        }
+        try {
+            for (int i = 0; i < count; i++) {
+                batch.add(waitingQueue.poll());
+            }
+            size = waitingQueue.size();
+        } finally {
+            mutex.signal();
+        }
+        empty.signal(count);
+        return count;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+}
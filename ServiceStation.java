@@ -1,127 +1,22 @@
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.swing.*;
-import java.awt.*;
-
-class GUI extends JFrame {
-    private JTextArea logArea;
-    private JLabel queueLabel, pumpsLabel;
-    private JPanel pumpsPanel;
-    private final Map<Integer, JLabel> pumpLabels = new HashMap<>();
-    public int activePumps = 0;
-
-    public synchronized void incrementActivePumps() { activePumps++; updatePumpCount(activePumps); }
-    public synchronized void decrementActivePumps() { if (activePumps>0) activePumps--; updatePumpCount(activePumps); }
-
-    public GUI(int numPumps) {
-        setTitle("Service Station Dashboard");
-        setSize(700, 500);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLayout(new BorderLayout(10,10));
-
-        JLabel header = new JLabel("Car Wash Simulation", SwingConstants.CENTER);
-        header.setFont(new Font("Arial", Font.BOLD, 22));
-        add(header, BorderLayout.NORTH);
-
-        JPanel statusPanel = new JPanel(new GridLayout(1,2,20,10));
-        queueLabel = createStatusLabel("Queue: 0", new Color(70,130,180));
-        pumpsLabel = createStatusLabel("Active Pumps: 0", new Color(46,139,87));
-        statusPanel.add(queueLabel);
-        statusPanel.add(pumpsLabel);
-        add(statusPanel, BorderLayout.SOUTH);
-
-        pumpsPanel = new JPanel(new GridLayout(1, numPumps, 10,10));
-        for(int i=1;i<=numPumps;i++){
-            JLabel label=createPumpLabel(i);
-            pumpLabels.put(i,label);
-            pumpsPanel.add(label);
-        }
-        add(pumpsPanel, BorderLayout.CENTER);
-
-        logArea = new JTextArea();
-        logArea.setEditable(false);
-        logArea.setFont(new Font("Consolas", Font.PLAIN, 13));
-        JScrollPane logScroll = new JScrollPane(logArea);
-        logScroll.setBorder(BorderFactory.createTitledBorder("System Log"));
-        logScroll.setPreferredSize(new Dimension(200,500));
-        add(logScroll, BorderLayout.EAST);
-
-        setVisible(true);
-    }
-
-    private JLabel createStatusLabel(String text, Color color){
-        JLabel label=new JLabel(text,SwingConstants.CENTER);
-        label.setFont(new Font("Arial", Font.BOLD, 20));
-        label.setForeground(Color.WHITE);
-        label.setOpaque(true);
-        label.setBackground(color);
-        return label;
-    }
-
-    private JLabel createPumpLabel(int id){
-        JLabel label=new JLabel("Pump "+id+" [FREE]", SwingConstants.CENTER);
-        label.setFont(new Font("Segoe UI", Font.BOLD, 14));
-        label.setOpaque(true);
-        label.setBackground(new Color(144,238,144));
-        label.setBorder(BorderFactory.createLineBorder(Color.GRAY,1));
-        return label;
-    }
-
-    public void updateQueueSize(int size){ SwingUtilities.invokeLater(()->queueLabel.setText("Queue: "+size)); }
-    public void updatePumpCount(int active){ SwingUtilities.invokeLater(()->pumpsLabel.setText("Active Pumps: "+active)); }
-    public void setPumpBusy(int pumpId,String carName){ SwingUtilities.invokeLater(()->{
-        JLabel l=pumpLabels.get(pumpId); if(l!=null){ l.setText("Pump "+pumpId+" --> "+carName); l.setBackground(new Color(255,99,71)); }
-    }); }
-    public void setPumpFree(int pumpId){ SwingUtilities.invokeLater(()->{
-        JLabel l=pumpLabels.get(pumpId); if(l!=null){ l.setText("Pump "+pumpId+" [FREE]"); l.setBackground(new Color(144,238,144)); }
-    }); }
-    public void addLog(String msg){ SwingUtilities.invokeLater(()->{
-        logArea.append(msg+"\n"); logArea.setCaretPosition(logArea.getDocument().getLength());
-    }); }
-}
-
-class Logger {
-    private static GUI gui;
-    public static void setGUI(GUI g){ gui=g; }
-    public static synchronized void log(String msg){ if(gui!=null) gui.addLog(msg); }
-}
-
-class Validator {
-    private static Validator instance;
-    private int waitingCapacity;
-    int totalPumps;
-    private GUI gui;
-    private Set<String> carsInService=new HashSet<>();
-    private Set<Integer> busyPumps=new HashSet<>();
-
-    private Validator(int waitingCapacity,int totalPumps,GUI gui){ this.waitingCapacity=waitingCapacity; this.totalPumps=totalPumps; this.gui=gui; }
-    public static void init(int w,int p,GUI g){ instance=new Validator(w,p,g); }
-    public static Validator get(){ return instance; }
-    public synchronized void checkQueueLimit(int queueSize){ if(queueSize>waitingCapacity) Logger.log("Validator: Queue exceeded capacity ("+queueSize+"/"+waitingCapacity+")"); }
-    public synchronized void checkActivePumps(int activeCount){ if(activeCount>totalPumps) Logger.log("Validator: Active pumps exceed total limit ("+activeCount+"/"+totalPumps+")"); }
-    public synchronized void checkCarService(String carName){ if(carsInService.contains(carName)) Logger.log("⚠️ Validator: "+carName+" tried to start service twice!"); else carsInService.add(carName); }
-    public synchronized void markPumpBusy(int id){ busyPumps.add(id); }
-    public synchronized void markPumpFree(int id){ busyPumps.remove(id); }
-}
-
-class Semaphore {
-    private int value;
-    public Semaphore(){ value=0; }
-    public Semaphore(int val){ value=val; }
-    public synchronized void waiting() throws InterruptedException{ while(value<=0) wait(); value--; }
-    public synchronized void signal(){ value++; notify(); }
-    public synchronized int get(){ return value; }
-}
 
 class Pump extends Thread {
     private int pumpId;
-    private Queue<String> waitingQueue;
-    private Semaphore mutex, empty, full, pumps;
+    private WaitingArea<String> waitingArea;
+    private Semaphore pumps;
     private volatile boolean running=true;
-    private GUI gui;
+    private StationEventSink events;
+    private CompletionLatch completion;
+    private Validator validator; // null when the station runs without one
 
-    public Pump(int pumpId,Queue<String> q,Semaphore m,Semaphore e,Semaphore f,Semaphore p,GUI gui){
-        this.pumpId=pumpId; waitingQueue=q; mutex=m; empty=e; full=f; pumps=p; this.gui=gui;
+    public Pump(int pumpId,WaitingArea<String> w,Semaphore p,StationEventSink events,CompletionLatch completion,Validator validator){
+        this.pumpId=pumpId; waitingArea=w; pumps=p; this.events=events; this.completion=completion; this.validator=validator;
         setName("Pump "+pumpId);
     }
 
@@ -131,29 +26,20 @@ class Pump extends Thread {
     public void run(){
         try{
             while(running && !Thread.currentThread().isInterrupted()){
-                full.waiting();
-                mutex.waiting();
-                String car;
-                try{ car=waitingQueue.poll(); gui.updateQueueSize(waitingQueue.size()); } finally { mutex.signal(); }
-                if(car==null) continue;
-                empty.signal();
+                String car=waitingArea.take();
                 pumps.waiting();
 
-                Logger.log("Pump "+pumpId+": "+car+" Occupied");
-                Logger.log("Pump "+pumpId+": "+car+" begins service at Bay "+pumpId);
-                gui.setPumpBusy(pumpId,car);
-                Validator.get().checkCarService(car);
-                Validator.get().markPumpBusy(pumpId);
-                gui.incrementActivePumps();
-                Validator.get().checkActivePumps(gui.activePumps);
+                events.serviceStarted(pumpId,car,waitingArea.size(),System.nanoTime());
+                if(validator!=null){ validator.checkCarService(car); validator.markPumpBusy(pumpId); }
 
                 Thread.sleep(2000);
 
-                gui.setPumpFree(pumpId);
-                Logger.log("Pump "+pumpId+": "+car+" finishes service");
-                Validator.get().markPumpFree(pumpId);
+                long finishedAt=System.nanoTime();
+                events.serviceFinished(pumpId,car,finishedAt);
+                if(validator!=null) validator.markPumpFree(pumpId);
+                events.bayFreed(pumpId,finishedAt);
                 pumps.signal();
-                gui.decrementActivePumps();
+                completion.done();
             }
         }catch(InterruptedException e){ Thread.currentThread().interrupt(); }
     }
@@ -161,67 +47,145 @@ class Pump extends Thread {
 
 class Car implements Runnable {
     private String carName;
-    private Queue<String> waitingQueue;
-    private Semaphore empty, full, mutex, pumps;
-    private GUI gui;
-    private static int carsArrived=0;
-    private static final Object arrivalLock=new Object();
-
-    public Car(String name,Queue<String> q,Semaphore e,Semaphore f,Semaphore m,Semaphore p,GUI g){
-        carName=name; waitingQueue=q; empty=e; full=f; mutex=m; pumps=p; gui=g;
+    private WaitingArea<String> waitingArea;
+    private Semaphore pumps;
+    private StationEventSink events;
+    private CompletionLatch completion;
+    private int totalPumps;
+    private Validator validator; // null when the station runs without one
+    private static final AtomicInteger carsArrived=new AtomicInteger();
+
+    public Car(String name,WaitingArea<String> w,Semaphore p,StationEventSink e,CompletionLatch c,int totalPumps,Validator v){
+        carName=name; waitingArea=w; pumps=p; events=e; completion=c; this.totalPumps=totalPumps; validator=v;
     }
 
+    static int arrivalDelayMillis(){ return ThreadLocalRandom.current().nextInt(100,300); }
+
     @Override
     public void run(){
-        Logger.log(carName+" arrived");
-        try{ Thread.sleep(ThreadLocalRandom.current().nextInt(100,300)); }catch(InterruptedException e){ Thread.currentThread().interrupt(); }
+        arrive();
+        try{ Thread.sleep(arrivalDelayMillis()); }catch(InterruptedException e){ Thread.currentThread().interrupt(); }
+        enterWaitingArea();
+    }
 
+    // With an arrival wheel the station calls these two itself, arrivalDelayMillis() apart.
+    public void arrive(){ events.arrived(carName,System.nanoTime()); }
+
+    public void enterWaitingArea(){
         try{
-            empty.waiting();
-            mutex.waiting();
-            try{
-                synchronized(arrivalLock){ carsArrived++; }
-                waitingQueue.add(carName);
-                gui.updateQueueSize(waitingQueue.size());
-                Validator.get().checkQueueLimit(waitingQueue.size());
-                if(carsArrived>Validator.get().totalPumps) Logger.log(carName+" arrived and waiting");
-            }finally{ mutex.signal(); }
-            full.signal();
-        }catch(InterruptedException e){ Thread.currentThread().interrupt(); }
+            waitingArea.enter(carName);
+            int arrived=carsArrived.incrementAndGet();
+            int size=waitingArea.size();
+            events.queued(carName,size,arrived>totalPumps,System.nanoTime());
+            if(validator!=null) validator.checkQueueLimit(size);
+        }catch(InterruptedException e){ Thread.currentThread().interrupt(); completion.done(); }
     }
 }
 
 public class ServiceStation {
-    private Queue<String> waitingQueue;
-    private Semaphore mutex, empty, full, pumps;
+    private WaitingArea<String> waitingArea;
+    private Semaphore pumps;
     private Pump[] pumpThreads;
-    private GUI gui;
+    private ExecutorService carExecutor;
+    private TimingWheel arrivalWheel; // null when cars and the arrival thread sleep instead
+    private StationEventSink events;
+    private int numPumps;
+    private Validator validator; // the one set up by Validator.init, if any
+    private final CompletionLatch completion=new CompletionLatch();
+    private volatile boolean accepting=true;
 
     public ServiceStation(int waitingAreaSize,int numPumps,GUI gui){
-        waitingQueue=new LinkedList<>();
-        mutex=new Semaphore(1);
-        empty=new Semaphore(waitingAreaSize);
-        full=new Semaphore(0);
+        this(waitingAreaSize,numPumps,gui,StationConfig.fromSystemProperties());
+    }
+
+    public ServiceStation(int waitingAreaSize,int numPumps,GUI gui,StationConfig config){
+        this(config.newWaitingArea(waitingAreaSize,numPumps),numPumps,gui,config);
+    }
+
+    public ServiceStation(WaitingArea<String> waitingArea,int numPumps,GUI gui,StationConfig config){
+        this(waitingArea,numPumps,gui.events(),config);
+    }
+
+    // Runs without a dashboard; the events go wherever the sink sends them. The invariants are
+    // only checked if Validator.init was called before, as main does for the dashboard.
+    public ServiceStation(WaitingArea<String> waitingArea,int numPumps,StationEventSink events,StationConfig config){
+        this.waitingArea=waitingArea;
+        this.numPumps=numPumps;
+        validator=Validator.get();
+        carExecutor=config.newCarExecutor();
+        arrivalWheel=config.newArrivalWheel();
         pumps=new Semaphore(numPumps);
-        this.gui=gui;
+        this.events=events;
         pumpThreads=new Pump[numPumps];
-        for(int i=0;i<numPumps;i++) pumpThreads[i]=new Pump(i+1,waitingQueue,mutex,empty,full,pumps,gui);
+        for(int i=0;i<numPumps;i++) pumpThreads[i]=new Pump(i+1,waitingArea,pumps,events,completion,validator);
     }
 
     public void startPumps(){ for(Pump p:pumpThreads) p.start(); }
-    public void addCar(String carName){ new Thread(new Car(carName,waitingQueue,empty,full,mutex,pumps,gui)).start(); }
+    public void addCar(String carName){
+        if(!accepting) throw new IllegalStateException("Station is closed, "+carName+" was turned away");
+        completion.admit();
+        if(!dispatch(carName)) throw new IllegalStateException("Station is closed, "+carName+" was turned away");
+    }
+
+    // Sends an admitted car on its way; false (and the car given up) if the station has stopped.
+    private boolean dispatch(String carName){
+        Car car=new Car(carName,waitingArea,pumps,events,completion,numPumps,validator);
+        try{
+            if(arrivalWheel==null){ carExecutor.execute(car); return true; }
+            car.arrive();
+            arrivalWheel.schedule(()->release(car),Car.arrivalDelayMillis(),TimeUnit.MILLISECONDS);
+            return true;
+        }catch(RejectedExecutionException|IllegalStateException e){ completion.done(); return false; }
+    }
+
+    // Runs on the timer thread once the car's arrival delay is over; entering may block, so it gets a thread.
+    private void release(Car car){
+        try{ carExecutor.execute(car::enterWaitingArea); }catch(RejectedExecutionException e){ completion.done(); }
+    }
 
+    // Every car counts as admitted straight away, so a drain waits for the ones not yet due.
     public void start(String[] cars,int arrivalDelayMillis){
         startPumps();
+        for(int i=0;i<cars.length;i++) completion.admit();
+        if(arrivalWheel!=null){
+            for(int i=0;i<cars.length;i++){
+                String car=cars[i].trim();
+                arrivalWheel.schedule(()->dispatch(car),(long)i*arrivalDelayMillis,TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
         new Thread(()->{
-            for(String car:cars){
-                addCar(car.trim());
-                try{ Thread.sleep(arrivalDelayMillis); }catch(InterruptedException e){ Thread.currentThread().interrupt(); break; }
+            for(int i=0;i<cars.length;i++){
+                dispatch(cars[i].trim());
+                try{ Thread.sleep(arrivalDelayMillis); }
+                catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    for(int j=i+1;j<cars.length;j++) completion.done(); // never sent
+                    break;
+                }
             }
         },"Car-Arrival").start();
     }
 
-    public void shutdown(){ for(Pump p:pumpThreads) p.shutdown(); }
+    public boolean awaitDrained(long timeout,TimeUnit unit) throws InterruptedException { return completion.await(timeout,unit); }
+    public long pendingCars(){ return completion.pending(); }
+
+    // Stops taking cars, waits for the added ones to be served, then stops; false if the timeout hit first.
+    public boolean shutdownGracefully(long timeout,TimeUnit unit) throws InterruptedException {
+        accepting=false;
+        boolean drained=completion.await(timeout,unit);
+        shutdown();
+        return drained;
+    }
+
+    // Stops right away, abandoning waiting cars and cars in service.
+    public void shutdown(){
+        accepting=false;
+        if(arrivalWheel!=null) arrivalWheel.stop();
+        carExecutor.shutdownNow();
+        for(Pump p:pumpThreads) p.shutdown();
+        events.close();
+    }
 
     public static void main(String[] args){
         String wInput=JOptionPane.showInputDialog("Enter waiting area capacity:");
@@ -243,5 +207,15 @@ public class ServiceStation {
         ServiceStation station=new ServiceStation(wSize,nPumps,gui);
         station.start(cars,500);
         Logger.log("Simulation started successfully!");
+
+        StationConfig config=StationConfig.fromSystemProperties();
+        Thread closing=new Thread(()->{
+            try{
+                if(station.shutdownGracefully(config.drainTimeoutMillis(),TimeUnit.MILLISECONDS)) Logger.log("All cars processed. Station closing.");
+                else Logger.log(station.pendingCars()+" cars still in the station. Station closing.");
+            }catch(InterruptedException e){ Thread.currentThread().interrupt(); }
+        },"Station-Drain");
+        closing.setDaemon(true);
+        closing.start();
     }
 }
@@ -1,51 +1,50 @@
-import java.util.Queue;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
-
-class Semaphore {
-    private int value;
-    public Semaphore() {
-        value = 0;
-    }
-
-    public Semaphore(int val) {
-        value = val;
-    }
-
-    public synchronized void waiting() throws InterruptedException {
-        while (value <= 0) {
-            wait();
-        }
-        value--;
-    }
-
-    public synchronized void signal() {
-        value++;
-        notify();
-    }
-
-    public synchronized int get() {
-        return value;
-    }
-}
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
 
 class Pump extends Thread {
     private final int pumpId;
-    private final Queue<String> waitingQueue; // shared queue of car names
-    private final Semaphore mutex;
-    private final Semaphore empty;
-    private final Semaphore full;
+    private final WaitingArea<Car> waitingArea; // shared waiting area of cars
     private final Semaphore pumps;
+    private final int batchSize;
+    private final IntSupplier fairShareOf;
+    private final List<Car> runList;
+    private final QueueStats stats;
+    private final StationMetrics metrics;
+    private final StationEventSink events;
+    private final ConsoleWriter console;
     private volatile boolean running = true;
+    private volatile boolean retiring = false;
+    private volatile boolean idle = false; // waiting for cars, the only time retire() interrupts it
 
-    public Pump(int pumpId, Queue<String> waitingQueue, Semaphore mutex, Semaphore empty, Semaphore full, Semaphore pumps) {
+    /**
+     * @param batchSize Most cars the pump claims from the waiting area at once; 1 takes them one by one.
+     * @param fairShareOf Caps a batch at the queued cars divided by this many pumps, so one
+     *                    pump cannot take the whole queue while others are idle; 1 for no cap.
+     *                    Asked before every batch, so it can follow the pumps the autoscaler runs.
+     * @param console Where the pump says it has retired.
+     */
+    public Pump(int pumpId, WaitingArea<Car> waitingArea, Semaphore pumps, int batchSize, IntSupplier fairShareOf,
+                QueueStats stats, StationMetrics metrics, StationEventSink events, ConsoleWriter console) {
         this.pumpId = pumpId;
-        this.waitingQueue = waitingQueue;
-        this.mutex = mutex;
-        this.empty = empty;
-        this.full = full;
+        this.waitingArea = waitingArea;
         this.pumps = pumps;
+        this.batchSize = Math.max(1, batchSize);
+        this.fairShareOf = fairShareOf;
+        runList = new ArrayList<>(this.batchSize);
+        this.stats = stats;
+        this.metrics = metrics;
+        this.events = events;
+        this.console = console;
         setName("Pump " + pumpId);
     }
 
@@ -54,43 +53,311 @@ class Pump extends Thread {
         interrupt();
     }
 
+    /**
+     * Stops the pump for good once its current cars are served, giving up its bay. A pump
+     * that is serving is not interrupted: it sees the flag before it claims the next batch.
+     */
+    public void retire() {
+        retiring = true;
+        if (idle) {
+            interrupt();
+        }
+    }
+
+    public boolean retiring() {
+        return retiring;
+    }
+
     @Override
     public void run() {
         try {
-            while (running && !Thread.currentThread().isInterrupted()) {
-                full.waiting(); // wait until at least one car exists
-                mutex.waiting(); // enter critical section
-
-                String car;
+            while (running && !retiring && !Thread.currentThread().isInterrupted()) {
+                int queued = waitingArea.size();
+                int share = Math.max(1, fairShareOf.getAsInt());
+                int limit = Math.min(batchSize, Math.max(1, (queued + share - 1) / share));
+                int claimed;
+                idle = true;
                 try {
-                    car = waitingQueue.poll();
+                    if (retiring) { // retire() came before it could see 'idle'
+                        break;
+                    }
+                    // wait until at least one car exists, claim up to 'limit' of them and free their slots
+                    claimed = waitingArea.takeBatch(runList, limit);
                 } finally {
-                    mutex.signal();
+                    idle = false;
+                }
+                // A retire() that interrupted just as the batch was claimed waits until it is served
+                if (Thread.interrupted() && !running) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long dequeuedAt = System.nanoTime();
+                metrics.recordBatch(claimed);
+                for (Car car : runList) {
+                    if (!serve(car, dequeuedAt)) {
+                        return;
+                    }
                 }
-                if (car == null) continue;
+                runList.clear();
+            }
+        } catch (InterruptedException e) {
+            if (!retiring) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (running && retiring) {
+            // Take this pump's bay out of the station
+            Thread.interrupted();
+            try {
+                pumps.waiting();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            console.println("Pump " + pumpId + ": retired");
+        }
+    }
 
-                empty.signal(); // one more free slot in waiting area
-                pumps.waiting(); // acquire service bay
+    // Returns false if the pump was stopped during the service.
+    private boolean serve(Car car, long dequeuedAt) {
+        if (!acquireBay()) {
+            return false;
+        }
+        long startedAt = System.nanoTime();
+        events.serviceStarted(pumpId, car.toString(), waitingArea.size(), startedAt);
 
-                synchronized (System.out) {
-                    System.out.println("Pump " + pumpId + ": " + car + " Occupied");
-                    System.out.println("Pump " + pumpId + ": " + car + " login");
-                    System.out.println("Pump " + pumpId + ": " + car + " begins service at Bay " + pumpId);
+        if (!sleepThroughService(car.serviceMillis())) {
+            pumps.signal();
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        long finishedAt = System.nanoTime();
+        events.serviceFinished(pumpId, car.toString(), finishedAt);
+        events.bayFreed(pumpId, finishedAt);
+        stats.recordService(car.arrivedAt(), startedAt, finishedAt);
+        metrics.recordCar(pumpId, car.arrivedAt(), car.enteredAt(dequeuedAt), dequeuedAt, startedAt, finishedAt);
+        pumps.signal(); // release bay
+        car.leave();
+        return true;
+    }
+
+    // Only shutdown() cuts a service short; a retiring pump serves the cars it has claimed.
+    private boolean acquireBay() {
+        while (true) {
+            try {
+                pumps.waiting();
+                return true;
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return false;
                 }
+            }
+        }
+    }
 
-                try {
-                    Thread.sleep(2000);
-                } catch (InterruptedException e) {
-                    pumps.signal();
-                    Thread.currentThread().interrupt();
-                    break;
+    private boolean sleepThroughService(long millis) {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long left;
+        while ((left = end - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(left);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
+
+/**
+ * Runs every bay as a small state machine (IDLE -> SERVING -> IDLE) on a few event-loop
+ * threads instead of one blocked thread per pump. A bay is only ever touched by its own
+ * loop, and the end of a service is a timed event on that loop rather than a sleep, so
+ * thousands of bays need no more threads than the loop pool. The events, statistics
+ * and metrics are the same as {@link Pump#run()}'s.
+ */
+class PumpReactor {
+    private static final int IDLE = 0;
+    private static final int SERVING = 1;
+
+    private final class Bay {
+        final int pumpId;
+        final ScheduledExecutorService loop;
+        int state = IDLE;
+        Car car;
+        long dequeuedAt;
+        long startedAt;
+
+        Bay(int pumpId, ScheduledExecutorService loop) {
+            this.pumpId = pumpId;
+            this.loop = loop;
+        }
+
+        // On the loop: there is a car in the waiting area reserved for this bay.
+        void serveNext() {
+            try {
+                car = waitingArea.take(); // never waits, the car was counted in before the bay was sent
+                dequeuedAt = System.nanoTime();
+                pumps.waiting(); // never waits either, an idle bay holds no permit
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            startedAt = System.nanoTime();
+            state = SERVING;
+            events.serviceStarted(pumpId, car.toString(), waitingArea.size(), startedAt);
+            loop.schedule(this::finish, car.serviceMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        // On the loop, once the service time is over.
+        void finish() {
+            long finishedAt = System.nanoTime();
+            events.serviceFinished(pumpId, car.toString(), finishedAt);
+            events.bayFreed(pumpId, finishedAt);
+            stats.recordService(car.arrivedAt(), startedAt, finishedAt);
+            metrics.recordCar(pumpId, car.arrivedAt(), car.enteredAt(dequeuedAt), dequeuedAt, startedAt, finishedAt);
+            pumps.signal(); // release bay
+            Car served = car;
+            car = null;
+            state = IDLE;
+            served.leave();
+            idleBays.add(this);
+            dispatch();
+        }
+    }
+
+    private final WaitingArea<Car> waitingArea;
+    private final Semaphore pumps;
+    private final QueueStats stats;
+    private final StationMetrics metrics;
+    private final StationEventSink events;
+    private final ScheduledExecutorService[] loops;
+    private final ConcurrentLinkedQueue<Bay> idleBays = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger unclaimedCars = new AtomicInteger(); // in the waiting area, no bay sent yet
+
+    /**
+     * @param threadPrefix Put in front of the loop thread names, to tell stations apart.
+     */
+    public PumpReactor(int numberOfPumps, int loopThreads, WaitingArea<Car> waitingArea, Semaphore pumps,
+                       QueueStats stats, StationMetrics metrics, StationEventSink events, String threadPrefix) {
+        // Cars are paired with bays here, so a handoff adds nothing, and a loop must never park in its take()
+        this.waitingArea = waitingArea instanceof HandoffWaitingArea<Car> handoff ? handoff.area() : waitingArea;
+        this.pumps = pumps;
+        this.stats = stats;
+        this.metrics = metrics;
+        this.events = events;
+        loops = new ScheduledExecutorService[Math.max(1, Math.min(loopThreads, numberOfPumps))];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name(threadPrefix + "Pump-Loop-" + (i + 1)).factory());
+        }
+        for (int i = 0; i < numberOfPumps; i++) {
+            idleBays.add(new Bay(i + 1, loops[i % loops.length]));
+        }
+    }
+
+    /**
+     * The waiting area the cars should enter: the same one, but it tells the reactor.
+     */
+    public WaitingArea<Car> intake() {
+        return new WaitingArea<>() {
+            @Override
+            public void enter(Car car) throws InterruptedException {
+                waitingArea.enter(car);
+                entered();
+            }
+
+            @Override
+            public boolean tryEnter(Car car) {
+                if (!waitingArea.tryEnter(car)) {
+                    return false;
                 }
+                entered();
+                return true;
+            }
+
+            @Override
+            public boolean enter(Car car, long timeout, TimeUnit unit) throws InterruptedException {
+                if (!waitingArea.enter(car, timeout, unit)) {
+                    return false;
+                }
+                entered();
+                return true;
+            }
+
+            @Override
+            public Car enterOrShed(Car car) {
+                Car shed = waitingArea.enterOrShed(car);
+                if (shed == null) {
+                    entered();
+                } // a replaced car leaves the number of unclaimed cars as it was
+                return shed;
+            }
+
+            @Override
+            public Car take() throws InterruptedException {
+                return waitingArea.take();
+            }
+
+            @Override
+            public int size() {
+                return waitingArea.size();
+            }
+
+            @Override
+            public int capacity() {
+                return waitingArea.capacity();
+            }
+        };
+    }
+
+    private void entered() {
+        unclaimedCars.incrementAndGet();
+        dispatch();
+    }
 
-                synchronized (System.out) {
-                    System.out.println("Pump " + pumpId + ": " + car + " finishes service");
-                    System.out.println("Pump " + pumpId + ": Bay " + pumpId + " is now free");
+    // Pairs idle bays with unclaimed cars. Whoever adds a car or frees a bay calls this, and
+    // a bay that found no car is put back before checking again, so no pair is missed.
+    private void dispatch() {
+        Bay bay;
+        while ((bay = idleBays.poll()) != null) {
+            if (!claimCar()) {
+                idleBays.add(bay);
+                if (unclaimedCars.get() > 0) {
+                    continue;
                 }
-                pumps.signal(); // release bay
+                return;
+            }
+            try {
+                bay.loop.execute(bay::serveNext);
+            } catch (RejectedExecutionException e) {
+                return; // shut down
+            }
+        }
+    }
+
+    private boolean claimCar() {
+        int cars;
+        while ((cars = unclaimedCars.get()) > 0) {
+            if (unclaimedCars.compareAndSet(cars, cars - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stops the loops; cars being served are abandoned, like interrupting a Pump.
+     */
+    public void shutdown() {
+        for (ScheduledExecutorService loop : loops) {
+            loop.shutdownNow();
+        }
+        try {
+            for (ScheduledExecutorService loop : loops) {
+                loop.awaitTermination(1, TimeUnit.SECONDS);
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -101,30 +368,85 @@ class Pump extends Thread {
 
 class Car implements Runnable {
     private final String carName;
-    private final Queue<String> waitingQueue;
-    private final Semaphore empty;
-    private final Semaphore full;
-    private final Semaphore mutex;
+    private final int serviceMillis;
+    private final int priority;
+    private final WaitingArea<Car> waitingArea;
     private final Semaphore pumps;
-    private static int carsArrived = 0;
-    private static final Object arrivalLock = new Object();
+    private final StationConfig config;
+    private final QueueStats stats;
+    private final CompletionLatch completion;
+    private final StationEventSink events;
+    private long arrivedAt; // published to the pump by the waiting area handoff
+    private volatile long enteredAt; // written after the handoff, a pump may already have the car
+    private static final AtomicInteger carsArrived = new AtomicInteger();
 
     /**
      * Constructor for the Car (Producer) thread.
      * @param name The name/ID of the car.
-     * @param queue The shared waiting queue.
-     * @param empty The 'empty' semaphore.
-     * @param full The 'full' semaphore.
-     * @param mutex The 'mutex' semaphore (lock).
+     * @param serviceMillis How long the car takes at a pump.
+     * @param priority Cars of higher priority are shed last when the waiting area is full.
+     * @param waitingArea The shared waiting area.
      * @param pumps The 'pumps' semaphore to check if all pumps are busy.
+     * @param config Supplies the arrival delay and the admission policy.
+     * @param stats Records the waiting area length and the cars turned away.
+     * @param completion Told when the car leaves the station.
+     * @param events Told when the car arrives and gets into the waiting area.
      */
-    public Car(String name, Queue<String> queue, Semaphore empty, Semaphore full, Semaphore mutex, Semaphore pumps) {
+    public Car(String name, int serviceMillis, int priority, WaitingArea<Car> waitingArea, Semaphore pumps,
+               StationConfig config, QueueStats stats, CompletionLatch completion, StationEventSink events) {
         this.carName = name;
-        this.waitingQueue = queue;
-        this.empty = empty;
-        this.full = full;
-        this.mutex = mutex;
+        this.serviceMillis = serviceMillis;
+        this.priority = priority;
+        this.waitingArea = waitingArea;
         this.pumps = pumps;
+        this.config = config;
+        this.stats = stats;
+        this.completion = completion;
+        this.events = events;
+    }
+
+    /**
+     * When the car reached the waiting area, in System.nanoTime().
+     */
+    public long arrivedAt() {
+        return arrivedAt;
+    }
+
+    /**
+     * When the car got a slot in the waiting area, in System.nanoTime(), or 0 if it has not
+     * noticed yet because a pump took it straight away.
+     */
+    public long enteredAt() {
+        return enteredAt;
+    }
+
+    /**
+     * When the car got a slot in the waiting area, or {@code dequeuedAt} if a pump took
+     * it before it noticed.
+     */
+    public long enteredAt(long dequeuedAt) {
+        long at = enteredAt;
+        return at == 0 || at > dequeuedAt ? dequeuedAt : at;
+    }
+
+    public int serviceMillis() {
+        return serviceMillis;
+    }
+
+    public int priority() {
+        return priority;
+    }
+
+    /**
+     * Called by the pump once the car has been served.
+     */
+    public void leave() {
+        completion.done();
+    }
+
+    @Override
+    public String toString() {
+        return carName;
     }
 
     /**
@@ -133,99 +455,504 @@ class Car implements Runnable {
     private void simulateArrival() {
         try {
             // Simulate random delay before entering the queue
-            long sleepTime = ThreadLocalRandom.current().nextInt(100, 300);
+            long sleepTime = config.arrivalDelayMillis(ThreadLocalRandom.current());
             Thread.sleep(sleepTime);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
     }
 
+    /**
+     * Arrives, sleeps through the arrival delay and enters the waiting area.
+     */
     @Override
     public void run() {
-        // Print arrival immediately
-        System.out.println(carName + " arrived");
-
+        arrive();
         simulateArrival(); // Simulate arrival delay
+        enterWaitingArea();
+    }
 
+    /**
+     * Reports the arrival; when the station times arrivals itself it calls this, then
+     * {@link #enterWaitingArea()} once the delay is over.
+     */
+    public void arrive() {
+        events.arrived(carName, System.nanoTime());
+    }
+
+    /**
+     * Gets into the waiting area as the admission policy allows: waiting for a slot for as
+     * long as it takes or for a limited time, so it must run on a thread that may block.
+     */
+    public void enterWaitingArea() {
         try {
             // Count cars arrived
-            synchronized (arrivalLock) {
-                carsArrived++;
-            }
+            carsArrived.incrementAndGet();
 
             // Check if all pumps are busy (pumps semaphore is 0)
             boolean allPumpsBusy = pumps.get() == 0;
 
-            // 1. Wait until a space is available in the waiting area
-            empty.waiting();
-
-            // 2. Acquire the lock for exclusive access to the critical section
-            mutex.waiting();
-
-            // --- Critical Section: Adding the item to the buffer ---
-            waitingQueue.add(carName);
-
-            // Print "arrived and waiting" if all pumps are busy AND we've reached the pump capacity
-            if (allPumpsBusy ) {
-                System.out.println(carName + " arrived and waiting");
+            // Wait until a space is available, then add the car to the waiting area.
+            // This also signals a pump that a new car is available.
+            arrivedAt = System.nanoTime();
+            switch (config.admission()) {
+                case TIMEOUT:
+                    if (!waitingArea.enter(this, config.admissionTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                        turnAway("balked after waiting " + config.admissionTimeoutMillis() + " ms");
+                        stats.recordBalked();
+                        return;
+                    }
+                    break;
+                case REJECT:
+                case SHED:
+                    if (!tryEnterWaitingArea(allPumpsBusy)) {
+                        return;
+                    }
+                    break;
+                case BLOCK:
+                default:
+                    waitingArea.enter(this);
             }
-            // --------------------------------------------------------
-
+            entered(allPumpsBusy);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             System.err.println(carName + " was interrupted while waiting.");
-            return;
-        } finally {
-            // 3. Release the mutual exclusion lock
-            mutex.signal();
+            completion.done();
         }
+    }
+
+    /**
+     * Gets into the waiting area without waiting: under SHED admission by replacing a lower
+     * priority car if it is full, otherwise only if a slot is free. A car that does not get
+     * in leaves the station.
+     * @return false if the car was turned away.
+     */
+    public boolean tryEnterWaitingArea() {
+        return tryEnterWaitingArea(pumps.get() == 0);
+    }
+
+    private boolean tryEnterWaitingArea(boolean allPumpsBusy) {
+        if (arrivedAt == 0) {
+            arrivedAt = System.nanoTime();
+        }
+        boolean admitted;
+        if (config.admission() == StationConfig.Admission.SHED) {
+            Car shed = waitingArea.enterOrShed(this);
+            if (shed != null && shed != this) {
+                shed.turnAway("shed to make room for " + carName);
+                stats.recordShed();
+            }
+            admitted = shed != this;
+        } else {
+            admitted = waitingArea.tryEnter(this);
+        }
+        if (!admitted) {
+            turnAway("turned away, the waiting area is full");
+            stats.recordRejected();
+            return false;
+        }
+        entered(allPumpsBusy);
+        return true;
+    }
+
+    private void entered(boolean allPumpsBusy) {
+        long at = System.nanoTime();
+        enteredAt = at;
+        int queueLength = waitingArea.size();
+        stats.recordQueueLength(queueLength);
+        events.queued(carName, queueLength, allPumpsBusy, at);
+    }
 
-        // 4. Signal that a new item (car) is available in the queue
-        full.signal();
+    // The car leaves without being served.
+    private void turnAway(String why) {
+        config.console().println(carName + " " + why);
+        completion.done();
     }
 }
 
-public class ServiceStationConsole {
-    private final Queue<String> waitingQueue;
-    private final Semaphore mutex;
-    private final Semaphore empty;
-    private final Semaphore full;
+public class ServiceStationConsole implements ThreadedStation {
+    private final WaitingArea<Car> waitingArea;
     private final Semaphore pumps;
-    private final Pump[] pumpThreads;
+    private final Pump[] pumpThreads; // empty when the reactor runs the bays; null slots are free
+    private final PumpReactor reactor; // null when every pump has its own thread
+    private final PumpAutoscaler autoscaler; // null unless station.autoscale is on
     private final int numberOfPumps;
+    private final String threadPrefix;
+    private volatile int activePumps; // changed under pumpThreads
+    private boolean pumpsStarted; // guarded by pumpThreads
+    private final StationConfig config;
+    private final ExecutorService carExecutor;
+    private final TimingWheel arrivalWheel; // null when every car sleeps through its own delay
+    private final QueueStats stats = new QueueStats();
+    private final StationMetrics metrics;
+    private final StationEventSink events;
+    private final CompletionLatch completion = new CompletionLatch();
+    private volatile boolean accepting = true;
 
     public ServiceStationConsole(int waitingAreaSize, int numberOfPumps) {
-        waitingQueue = new LinkedList<>();
-        mutex = new Semaphore(1);
-        empty = new Semaphore(waitingAreaSize);
-        full = new Semaphore(0);
+        this(waitingAreaSize, numberOfPumps, StationConfig.fromSystemProperties());
+    }
+
+    public ServiceStationConsole(int waitingAreaSize, int numberOfPumps, StationConfig config) {
+        this(config.newWaitingArea(waitingAreaSize, numberOfPumps, Car::priority), numberOfPumps, config);
+    }
+
+    /**
+     * @param name Put in front of the names of all the station's threads; may be empty.
+     */
+    public ServiceStationConsole(String name, int waitingAreaSize, int numberOfPumps, StationConfig config) {
+        this(name, waitingAreaSize, numberOfPumps, config, config.newEventSink(name.isEmpty() ? "" : name + "-"));
+    }
+
+    /**
+     * @param events Where the station reports its cars and bays; stations may share one.
+     */
+    public ServiceStationConsole(String name, int waitingAreaSize, int numberOfPumps, StationConfig config,
+                                 StationEventSink events) {
+        this(name, config.newWaitingArea(waitingAreaSize, numberOfPumps, Car::priority), numberOfPumps, config,
+                events);
+    }
+
+    public ServiceStationConsole(WaitingArea<Car> waitingArea, int numberOfPumps, StationConfig config) {
+        this("", waitingArea, numberOfPumps, config);
+    }
+
+    /**
+     * @param name Put in front of the names of all the station's threads, so that the
+     *             threads of stations running side by side can be told apart; may be empty.
+     */
+    public ServiceStationConsole(String name, WaitingArea<Car> waitingArea, int numberOfPumps, StationConfig config) {
+        this(name, waitingArea, numberOfPumps, config, config.newEventSink(name.isEmpty() ? "" : name + "-"));
+    }
+
+    public ServiceStationConsole(String name, WaitingArea<Car> waitingArea, int numberOfPumps, StationConfig config,
+                                 StationEventSink events) {
+        this.events = events;
+        threadPrefix = name.isEmpty() ? "" : name + "-";
+        this.config = config;
+        carExecutor = config.newCarExecutor(threadPrefix);
+        arrivalWheel = config.newArrivalWheel(threadPrefix);
         pumps = new Semaphore(numberOfPumps);
         this.numberOfPumps = numberOfPumps;
 
-        pumpThreads = new Pump[numberOfPumps];
-        for (int i = 0; i < numberOfPumps; i++) {
-            pumpThreads[i] = new Pump(i + 1, waitingQueue, mutex, empty, full, pumps);
+        if (config.pumpEngine() == StationConfig.PumpEngine.REACTOR) {
+            metrics = new StationMetrics(numberOfPumps);
+            reactor = new PumpReactor(numberOfPumps, config.reactorThreads(), waitingArea, pumps, stats, metrics,
+                    events, threadPrefix);
+            this.waitingArea = reactor.intake();
+            pumpThreads = new Pump[0];
+            autoscaler = null;
+        } else {
+            // With autoscaling there are slots for the most pumps it may run
+            int slots = config.autoscale() ? config.maxPumps(numberOfPumps) : numberOfPumps;
+            metrics = new StationMetrics(slots);
+            reactor = null;
+            this.waitingArea = waitingArea;
+            pumpThreads = new Pump[slots];
+            for (int i = 0; i < numberOfPumps; i++) {
+                pumpThreads[i] = newPump(i + 1);
+            }
+            activePumps = numberOfPumps;
+            autoscaler = config.autoscale() ? newAutoscaler(slots) : null;
         }
     }
 
+    private Pump newPump(int pumpId) {
+        Pump pump = new Pump(pumpId, waitingArea, pumps, config.batchSize(),
+                config.batchFairShare() ? () -> activePumps : () -> 1, stats, metrics, events, config.console());
+        pump.setName(threadPrefix + pump.getName());
+        return pump;
+    }
+
+    private PumpAutoscaler newAutoscaler(int maxPumps) {
+        PumpAutoscaler scaler = new PumpAutoscaler(new PumpAutoscaler.Pool() {
+            @Override
+            public int activePumps() {
+                return ServiceStationConsole.this.activePumps();
+            }
+
+            @Override
+            public int queueLength() {
+                return ServiceStationConsole.this.queueLength();
+            }
+
+            @Override
+            public LatencyHistogram.Snapshot queueWait() {
+                return metrics.queueWaitSnapshot();
+            }
+
+            @Override
+            public boolean addPump() {
+                return ServiceStationConsole.this.addPump();
+            }
+
+            @Override
+            public boolean retirePump() {
+                return ServiceStationConsole.this.retirePump();
+            }
+        }, config, Math.min(config.minPumps(), maxPumps), maxPumps, threadPrefix + "Pump-Autoscaler");
+        scaler.addListener(event -> config.console().println(event.toString()));
+        return scaler;
+    }
+
+    @Override
     public void startPumps() {
-        for (Pump pump : pumpThreads) {
-            pump.start();
+        long now = System.nanoTime();
+        stats.start(now);
+        metrics.start(now);
+        synchronized (pumpThreads) {
+            pumpsStarted = true;
+            for (Pump pump : pumpThreads) {
+                if (pump != null) {
+                    pump.start();
+                }
+            }
+        }
+        if (autoscaler != null) {
+            autoscaler.start();
         }
     }
 
+    /**
+     * Starts one more pump with a bay of its own, taking the lowest free pump number.
+     * @return false if all pump slots are taken (see station.autoscale.max), or the pumps
+     *         run on the reactor.
+     */
+    public boolean addPump() {
+        synchronized (pumpThreads) {
+            for (int i = 0; i < pumpThreads.length; i++) {
+                Pump slot = pumpThreads[i];
+                if (slot == null || slot.retiring() && !slot.isAlive()) {
+                    Pump pump = newPump(i + 1);
+                    pumpThreads[i] = pump;
+                    activePumps++;
+                    pumps.signal(); // its bay
+                    if (pumpsStarted) {
+                        pump.start();
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Retires the pump with the highest number: it finishes the cars it has claimed, then
+     * stops and its bay is taken away.
+     * @return false if no pump is running.
+     */
+    public boolean retirePump() {
+        synchronized (pumpThreads) {
+            for (int i = pumpThreads.length - 1; i >= 0; i--) {
+                Pump pump = pumpThreads[i];
+                if (pump != null && !pump.retiring()) {
+                    pump.retire();
+                    if (!pumpsStarted) {
+                        pumpThreads[i] = null;
+                        pumps.drainUpTo(1);
+                    }
+                    activePumps--;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Pumps serving or ready to serve, not counting retired ones.
+     */
+    public int activePumps() {
+        synchronized (pumpThreads) {
+            return reactor == null ? activePumps : numberOfPumps;
+        }
+    }
+
+    /**
+     * The autoscaler of the pump pool, or null if the pool has a fixed size.
+     */
+    public PumpAutoscaler autoscaler() {
+        return autoscaler;
+    }
+
     public void addCar(String carName) {
-        new Thread(new Car(carName, waitingQueue, empty, full, mutex, pumps)).start();
+        addCar(carName, config.serviceMillis());
+    }
+
+    public void addCar(String carName, int serviceMillis) {
+        addCar(carName, serviceMillis, 0);
+    }
+
+    /**
+     * @throws IllegalStateException If the station is shutting down.
+     */
+    @Override
+    public void addCar(String carName, int serviceMillis, int priority) {
+        if (!accepting) {
+            throw new IllegalStateException("Station is closed, " + carName + " was turned away");
+        }
+        completion.admit();
+        Car car = new Car(carName, serviceMillis, priority, waitingArea, pumps, config, stats, completion, events);
+        try {
+            if (arrivalWheel == null) {
+                carExecutor.execute(car);
+            } else {
+                // No thread until the car reaches the waiting area, where it may have to block
+                car.arrive();
+                arrivalWheel.schedule(() -> release(car),
+                        config.arrivalDelayMillis(ThreadLocalRandom.current()), TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException | IllegalStateException e) {
+            completion.done();
+            throw new IllegalStateException("Station is closed, " + carName + " was turned away", e);
+        }
+    }
+
+    /**
+     * Lets a car that is at the station now into the waiting area, without an arrival delay
+     * and without waiting for a slot: under SHED admission it may replace a lower priority
+     * car, otherwise it needs a free slot. A car that does not get in is counted as rejected.
+     * @return false if the car was turned away.
+     * @throws IllegalStateException If the station is shutting down.
+     */
+    @Override
+    public boolean tryEnter(String carName, int serviceMillis, int priority) {
+        if (!accepting) {
+            throw new IllegalStateException("Station is closed, " + carName + " was turned away");
+        }
+        completion.admit();
+        Car car = new Car(carName, serviceMillis, priority, waitingArea, pumps, config, stats, completion, events);
+        car.arrive();
+        return car.tryEnterWaitingArea();
+    }
+
+    // Runs on the timer thread when the car's arrival delay is over.
+    private void release(Car car) {
+        try {
+            carExecutor.execute(car::enterWaitingArea);
+        } catch (RejectedExecutionException e) {
+            car.leave(); // the station was stopped meanwhile
+        }
+    }
+
+    /**
+     * Waits until every car added so far has been served.
+     * @return false if the timeout elapsed first.
+     */
+    @Override
+    public boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException {
+        return completion.await(timeout, unit);
+    }
+
+    /**
+     * Waits until at most {@code limit} cars added so far are still unserved.
+     * @return false if the timeout elapsed first.
+     */
+    @Override
+    public boolean awaitPendingAtMost(long limit, long timeout, TimeUnit unit) throws InterruptedException {
+        return completion.awaitAtMost(limit, timeout, unit);
+    }
+
+    /**
+     * Cars added but not yet served.
+     */
+    @Override
+    public long pendingCars() {
+        return completion.pending();
     }
 
+    @Override
+    public QueueStats stats() {
+        return stats;
+    }
+
+    @Override
+    public int numberOfPumps() {
+        return numberOfPumps;
+    }
+
+    public StationMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Stops taking new cars, lets the ones already added be served, then stops.
+     * @return false if the timeout elapsed first and the remaining cars were abandoned.
+     */
+    public boolean shutdownGracefully(long timeout, TimeUnit unit) throws InterruptedException {
+        accepting = false;
+        boolean drained = completion.await(timeout, unit);
+        shutdown();
+        return drained;
+    }
+
+    /**
+     * Cars in the waiting area right now, not counting those on their way or being served.
+     */
+    public int queueLength() {
+        return waitingArea.size();
+    }
+
+    /**
+     * Stops right away: cars still waiting for a slot and cars being served are abandoned.
+     * Prints the station's metrics.
+     */
+    @Override
     public void shutdown() {
-        for (Pump pump : pumpThreads) {
-            pump.shutdown();
+        halt();
+        config.console().println(metrics.snapshot().toString());
+        config.console().close();
+    }
+
+    /**
+     * Like {@link #shutdown()}, without printing anything.
+     */
+    public void stop() {
+        halt();
+        config.console().close(); // writes out the lines of the cars turned away and the pumps retired
+    }
+
+    /**
+     * Like {@link #stop()}, but leaves the console open, for stations that share it and
+     * close it once they have all stopped.
+     */
+    void halt() {
+        accepting = false;
+        if (autoscaler != null) {
+            autoscaler.stop();
+        }
+        if (arrivalWheel != null) {
+            arrivalWheel.stop(); // cars still on their way never arrive
+        }
+        carExecutor.shutdownNow(); // interrupts the cars still waiting for a slot
+        if (reactor != null) {
+            reactor.shutdown();
+        }
+        Pump[] stopping;
+        synchronized (pumpThreads) {
+            stopping = pumpThreads.clone();
+        }
+        for (Pump pump : stopping) {
+            if (pump != null) {
+                pump.shutdown();
+            }
+        }
+        try {
+            for (Pump pump : stopping) {
+                if (pump != null) {
+                    pump.join();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        events.close();
     }
 
     public static void main(String[] args) {
         Scanner sc = new Scanner(System.in);
+        StationConfig config = StationConfig.fromSystemProperties();
 
         System.out.print("Waiting area capacity : ");
         int waitingSize = sc.nextInt();
@@ -234,13 +961,27 @@ public class ServiceStationConsole {
         int numberOfPumps = sc.nextInt();
         sc.nextLine();
 
-        ServiceStationConsole station = new ServiceStationConsole(waitingSize, numberOfPumps);
-
         System.out.println("Enter car names in arrival order, separated by commas.");
         System.out.print("Cars: ");
 
         String input = sc.nextLine().trim();
         String[] cars = input.split(",");
+        sc.close();
+
+        if (config.engine() != StationConfig.Engine.DISCRETE) {
+            QueueStats threaded = runThreaded(waitingSize, numberOfPumps, cars, config);
+            if (config.engine() == StationConfig.Engine.COMPARE) {
+                System.out.println("Threaded run:       " + threaded);
+            }
+        }
+        if (config.engine() != StationConfig.Engine.THREADED) {
+            DiscreteEventStation simulation = new DiscreteEventStation(waitingSize, numberOfPumps, config);
+            System.out.println("Discrete-event run: " + simulation.run(cars));
+        }
+    }
+
+    private static QueueStats runThreaded(int waitingSize, int numberOfPumps, String[] cars, StationConfig config) {
+        ServiceStationConsole station = new ServiceStationConsole(waitingSize, numberOfPumps, config);
 
         // Start pumps FIRST before adding any cars
         station.startPumps();
@@ -249,32 +990,26 @@ public class ServiceStationConsole {
         for (int i = 0; i < cars.length; i++) {
             station.addCar(cars[i].trim());
 
-            // Add strategic delays to ensure proper pump assignment
-            if (i < numberOfPumps) {
-                try {
-                    Thread.sleep(170);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            } else {
-                try {
-                    Thread.sleep(500); // Normal delay for subsequent cars
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
+            // Add strategic delays to ensure proper pump assignment:
+            // a shorter gap for the first car of each pump, the normal gap afterwards
+            try {
+                Thread.sleep(config.gapAfter(i, numberOfPumps));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
 
-        // Wait for all processing to complete - calculate based on number of cars
-        int processingTime = Math.max(3000, cars.length * 600);
+        // Wait for the last car to leave its bay
         try {
-            Thread.sleep(processingTime);
+            if (station.awaitDrained(config.drainTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                config.console().println("All cars processed. Station closing.");
+            } else {
+                config.console().println(station.pendingCars() + " cars still in the station. Station closing.");
+            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
-
-        System.out.println("All cars processed. Station closing.");
         station.shutdown();
-        sc.close();
+        return station.stats();
     }
 }
@@ -0,0 +1,138 @@
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * A first-come first-served waiting area that, when full, makes room for an arriving car
+ * by turning away the lowest priority car waiting, if that one is of lower priority than
+ * the newcomer. Among cars of the same lowest priority the one that arrived last goes,
+ * since it has waited the least.
+ *
+ * The cars are kept in a deque under a lock, since a car can leave from the middle; the
+ * 'empty' and 'full' semaphores count slots and cars as in {@link SemaphoreWaitingArea}.
+ * A replaced car is swapped for the newcomer, so neither count changes.
+ */
+public class SheddingWaitingArea<E> implements WaitingArea<E> {
+    private final ArrayDeque<E> waitingQueue = new ArrayDeque<>();
+    private final ToIntFunction<? super E> priority;
+    private final Semaphore empty; // available slots
+    private final Semaphore full = new Semaphore(0); // cars waiting
+    private final int capacity;
+    private volatile int size;
+
+    /**
+     * @param priority Higher values are turned away last.
+     */
+    public SheddingWaitingArea(int capacity, ToIntFunction<? super E> priority) {
+        this.capacity = capacity;
+        this.priority = priority;
+        empty = new Semaphore(capacity);
+    }
+
+    @Override
+    public void enter(E car) throws InterruptedException {
+        empty.waiting();
+        insert(car);
+    }
+
+    @Override
+    public boolean tryEnter(E car) {
+        if (!empty.tryWaiting()) {
+            return false;
+        }
+        insert(car);
+        return true;
+    }
+
+    @Override
+    public boolean enter(E car, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!empty.waiting(timeout, unit)) {
+            return false;
+        }
+        insert(car);
+        return true;
+    }
+
+    @Override
+    public E enterOrShed(E car) {
+        if (tryEnter(car)) {
+            return null;
+        }
+        synchronized (waitingQueue) {
+            if (empty.tryWaiting()) {
+                // A pump took a car meanwhile
+                waitingQueue.addLast(car);
+                size = waitingQueue.size();
+            } else {
+                E victim = null;
+                int lowest = priority.applyAsInt(car);
+                Iterator<E> newestFirst = waitingQueue.descendingIterator();
+                while (newestFirst.hasNext()) {
+                    E waiting = newestFirst.next();
+                    int p = priority.applyAsInt(waiting);
+                    if (p < lowest) {
+                        victim = waiting;
+                        lowest = p;
+                    }
+                }
+                if (victim == null) {
+                    return car;
+                }
+                waitingQueue.removeLastOccurrence(victim);
+                waitingQueue.addLast(car);
+                return victim;
+            }
+        }
+        full.signal();
+        return null;
+    }
+
+    // The caller holds an 'empty' permit for the car.
+    private void insert(E car) {
+        synchronized (waitingQueue) {
+            waitingQueue.addLast(car);
+            size = waitingQueue.size();
+        }
+        full.signal();
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        full.waiting();
+        E car;
+        synchronized (waitingQueue) {
+            car = waitingQueue.pollFirst();
+            size = waitingQueue.size();
+        }
+        empty.signal();
+        return car;
+    }
+
+    /**
+     * Moves the batch under a single hold of the lock.
+     */
+    @Override
+    public int takeBatch(List<? super E> batch, int max) throws InterruptedException {
+        int count = full.drain(max);
+        synchronized (waitingQueue) {
+            for (int i = 0; i < count; i++) {
+                batch.add(waitingQueue.pollFirst());
+            }
+            size = waitingQueue.size();
+        }
+        empty.signal(count);
+        return count;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,225 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Several stations operated as one: each arriving car is routed to one shard by a
+ * {@link Balancer} and from then on only that shard's waiting area and pumps see it.
+ *
+ * Every shard has its own waiting area, pumps, car threads and arrival timer, named after
+ * the shard ("S1-Pump 2", "S1-Car-7", ...). Besides the balancer the shards only share the
+ * event sink and the console writer, which take lines from many threads at once, so they
+ * scale across cores like separate stations would.
+ */
+public class StationCluster implements ThreadedStation {
+
+    private final ServiceStationConsole[] shards;
+    private final Balancer balancer;
+    private final StationConfig config;
+    private final int numberOfPumps;
+    private final AtomicInteger[] routed;
+    private volatile boolean accepting = true;
+
+    /**
+     * A cluster of identical shards, balanced as configured with station.balancer.
+     */
+    public StationCluster(int shards, int waitingAreaSize, int pumpsPerShard, StationConfig config) {
+        this(shards, waitingAreaSize, pumpsPerShard, config, config.balancer().newBalancer());
+    }
+
+    public StationCluster(int shards, int waitingAreaSize, int pumpsPerShard, StationConfig config, Balancer balancer) {
+        this.shards = new ServiceStationConsole[Math.max(1, shards)];
+        routed = new AtomicInteger[this.shards.length];
+        StationEventSink events = config.newEventSink(); // one for all shards, so they can share a file
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new ServiceStationConsole("S" + (i + 1), waitingAreaSize, pumpsPerShard, config, events);
+            routed[i] = new AtomicInteger();
+        }
+        this.balancer = balancer;
+        this.config = config;
+        numberOfPumps = this.shards.length * pumpsPerShard;
+    }
+
+    public int shards() {
+        return shards.length;
+    }
+
+    /**
+     * @param index From 0 to shards() - 1.
+     */
+    public ServiceStationConsole shard(int index) {
+        return shards[index];
+    }
+
+    /**
+     * How busy a shard is right now, for the balancers: the cars in its waiting area first,
+     * and among shards with equally long queues, all the cars it still has to serve. The
+     * second part matters while the queues are empty, when cars are still on their way or
+     * pumps are busy.
+     */
+    public long load(int index) {
+        ServiceStationConsole shard = shards[index];
+        return ((long) shard.queueLength() << 32) + shard.pendingCars();
+    }
+
+    @Override
+    public void startPumps() {
+        for (ServiceStationConsole shard : shards) {
+            shard.startPumps();
+        }
+    }
+
+    public void addCar(String carName) {
+        shards[route(carName)].addCar(carName);
+    }
+
+    public void addCar(String carName, int serviceMillis) {
+        addCar(carName, serviceMillis, 0);
+    }
+
+    /**
+     * @throws IllegalStateException If the cluster is shutting down.
+     */
+    @Override
+    public void addCar(String carName, int serviceMillis, int priority) {
+        shards[route(carName)].addCar(carName, serviceMillis, priority);
+    }
+
+    /**
+     * Tries only the shard the balancer picks, so a full shard turns the car away even if
+     * another one has room.
+     * @throws IllegalStateException If the cluster is shutting down.
+     */
+    @Override
+    public boolean tryEnter(String carName, int serviceMillis, int priority) {
+        return shards[route(carName)].tryEnter(carName, serviceMillis, priority);
+    }
+
+    private int route(String carName) {
+        if (!accepting) {
+            throw new IllegalStateException("Cluster is closed, " + carName + " was turned away");
+        }
+        int index = balancer.choose(shards.length, this::load);
+        routed[index].incrementAndGet();
+        return index;
+    }
+
+    /**
+     * Cars the balancer has sent to a shard so far.
+     */
+    public int routed(int index) {
+        return routed[index].get();
+    }
+
+    @Override
+    public boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = deadline(timeout, unit);
+        for (ServiceStationConsole shard : shards) {
+            if (!shard.awaitDrained(remaining(deadline), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits until at most {@code limit} cars are unserved over all shards. Wakes up with
+     * whichever shard is furthest behind, so it may wait a little longer than needed.
+     */
+    @Override
+    public boolean awaitPendingAtMost(long limit, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = deadline(timeout, unit);
+        long pending;
+        while ((pending = pendingCars()) > limit) {
+            int fullest = 0;
+            for (int i = 1; i < shards.length; i++) {
+                if (shards[i].pendingCars() > shards[fullest].pendingCars()) {
+                    fullest = i;
+                }
+            }
+            long excess = pending - limit;
+            long shardLimit = Math.max(0, shards[fullest].pendingCars() - excess);
+            if (!shards[fullest].awaitPendingAtMost(shardLimit, remaining(deadline), TimeUnit.NANOSECONDS)) {
+                return pendingCars() <= limit;
+            }
+        }
+        return true;
+    }
+
+    private static long deadline(long timeout, TimeUnit unit) {
+        long nanos = unit.toNanos(timeout);
+        long now = System.nanoTime();
+        return nanos >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + nanos;
+    }
+
+    private static long remaining(long deadline) {
+        return deadline == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(0, deadline - System.nanoTime());
+    }
+
+    @Override
+    public long pendingCars() {
+        long pending = 0;
+        for (ServiceStationConsole shard : shards) {
+            pending += shard.pendingCars();
+        }
+        return pending;
+    }
+
+    @Override
+    public int numberOfPumps() {
+        return numberOfPumps;
+    }
+
+    /**
+     * The statistics of all shards together; a new copy on every call.
+     */
+    @Override
+    public QueueStats stats() {
+        QueueStats total = new QueueStats();
+        for (ServiceStationConsole shard : shards) {
+            total.merge(shard.stats());
+        }
+        return total;
+    }
+
+    /**
+     * The metrics of all shards together, the pumps of shard 1 first.
+     */
+    public StationMetrics.Snapshot metricsSnapshot() {
+        List<StationMetrics.Snapshot> snapshots = new ArrayList<>(shards.length);
+        for (ServiceStationConsole shard : shards) {
+            snapshots.add(shard.metrics().snapshot());
+        }
+        return StationMetrics.Snapshot.combine(snapshots);
+    }
+
+    /**
+     * Stops taking new cars, lets the ones already added be served, then stops.
+     * @return false if the timeout elapsed first and the remaining cars were abandoned.
+     */
+    public boolean shutdownGracefully(long timeout, TimeUnit unit) throws InterruptedException {
+        accepting = false;
+        boolean drained = awaitDrained(timeout, unit);
+        shutdown();
+        return drained;
+    }
+
+    /**
+     * Stops every shard right away, then prints the combined metrics and how the cars were spread.
+     */
+    @Override
+    public void shutdown() {
+        accepting = false;
+        for (ServiceStationConsole shard : shards) {
+            shard.halt();
+        }
+        ConsoleWriter console = config.console(); // shared by the shards, closed once they have all stopped
+        console.println(metricsSnapshot().toString());
+        for (int i = 0; i < shards.length; i++) {
+            console.println(String.format("  shard S%d: %d cars routed, %d served",
+                    i + 1, routed[i].get(), shards[i].stats().served()));
+        }
+        console.close();
+    }
+}
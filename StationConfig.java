@@ -0,0 +1,643 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+import java.util.random.RandomGenerator;
+
+/**
+ * Run-time options of a station. Defaults can be overridden with -Dstation.* system properties.
+ */
+public class StationConfig {
+
+    public enum CarThreads {
+        VIRTUAL,  // one virtual thread per car (default)
+        PLATFORM, // one platform thread per car, the original behaviour
+        POOLED    // a fixed pool of platform threads shared by all cars
+    }
+
+    public enum Engine {
+        THREADED, // real threads and real sleeps
+        DISCRETE, // DiscreteEventStation on a virtual clock
+        COMPARE   // run both and print their statistics side by side
+    }
+
+    public enum PumpEngine {
+        THREADS, // one thread per pump, blocked while it serves (default)
+        REACTOR  // bays as state machines on a few event-loop threads (PumpReactor)
+    }
+
+    public enum Admission {
+        BLOCK,   // a car waits for a slot as long as it takes (default)
+        TIMEOUT, // a car waits at most station.admission.timeout, then balks
+        REJECT,  // a car that finds the waiting area full leaves at once
+        SHED     // a car that finds it full replaces a lower priority car, or leaves
+    }
+
+    public enum Events {
+        CONSOLE, // the usual lines on the console writer (default)
+        FILE,    // the same lines with timestamps, appended to station.events.file
+        NONE     // nothing, for benchmarks and long headless runs
+    }
+
+    public enum Arrivals {
+        WHEEL, // pending arrivals wait on one TimingWheel thread (default)
+        SLEEP  // every car sleeps through its own arrival delay, the original behaviour
+    }
+
+    private WaitingArea.Mode waitingAreaMode = WaitingArea.Mode.RING_BUFFER;
+    private CarThreads carThreads = CarThreads.VIRTUAL;
+    private int carPoolSize = 64;
+    private Engine engine = Engine.THREADED;
+    private Arrivals arrivals = Arrivals.WHEEL;
+    private LaneWaitingArea.Distribution laneDistribution = LaneWaitingArea.Distribution.LEAST_LOADED;
+    private boolean handoff = true;
+    private int batchSize = 1;
+    private boolean batchFairShare = true;
+    private PumpEngine pumpEngine = PumpEngine.THREADS;
+    private int reactorThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private int wheelTickMillis = 1;
+    private int minArrivalDelayMillis = 100;
+    private int maxArrivalDelayMillis = 300;
+    private int startupGapMillis = 170;
+    private int arrivalGapMillis = 500;
+    private int serviceMillis = 2000;
+    private long seed = 42;
+    private long drainTimeoutMillis = 0; // 0: wait until every car has left
+    private int readAhead = 10_000;
+    private int shards = 1;
+    private Balancer.Policy balancer = Balancer.Policy.TWO_CHOICES;
+    private Admission admission = Admission.BLOCK;
+    private long admissionTimeoutMillis = 1000;
+    private boolean autoscale = false;
+    private int minPumps = 1;
+    private int maxPumps = 0; // 0: twice the initial pumps
+    private int scaleUpQueue = 2;      // cars waiting per pump
+    private int scaleUpWaitMillis = 1000;
+    private int scaleDownQueue = 0;
+    private int scaleDownWaitMillis = 100;
+    private double scalePercentile = 90;
+    private int scaleIntervalMillis = 500;
+    private int scaleCooldownMillis = 2000;
+    private int scaleTicks = 3;
+    private Events events = Events.CONSOLE;
+    private Path eventsFile = Path.of("station-events.log");
+    private int eventRecords = 0; // 0: render on the reporting thread
+    private ConsoleWriter console; // null: ConsoleWriter.stdout()
+
+    public static StationConfig fromSystemProperties() {
+        StationConfig config = new StationConfig();
+        config.waitingAreaMode = WaitingArea.configuredMode();
+        config.carThreads = CarThreads.valueOf(
+                System.getProperty("station.carThreads", config.carThreads.name()).trim().toUpperCase());
+        config.carPoolSize = Integer.getInteger("station.carPoolSize", config.carPoolSize);
+        config.engine = Engine.valueOf(
+                System.getProperty("station.engine", config.engine.name()).trim().toUpperCase());
+        config.arrivals = Arrivals.valueOf(
+                System.getProperty("station.arrivals", config.arrivals.name()).trim().toUpperCase());
+        config.laneDistribution = LaneWaitingArea.Distribution.valueOf(
+                System.getProperty("station.lanes", config.laneDistribution.name()).trim().toUpperCase());
+        config.handoff = Boolean.parseBoolean(System.getProperty("station.handoff", String.valueOf(config.handoff)));
+        config.batchSize = Integer.getInteger("station.batchSize", config.batchSize);
+        config.batchFairShare = Boolean.parseBoolean(
+                System.getProperty("station.batchFairShare", String.valueOf(config.batchFairShare)));
+        config.pumpEngine = PumpEngine.valueOf(
+                System.getProperty("station.pumpEngine", config.pumpEngine.name()).trim().toUpperCase());
+        config.reactorThreads = Integer.getInteger("station.reactorThreads", config.reactorThreads);
+        config.wheelTickMillis = Integer.getInteger("station.wheelTick", config.wheelTickMillis);
+        config.minArrivalDelayMillis = Integer.getInteger("station.arrivalDelayMin", config.minArrivalDelayMillis);
+        config.maxArrivalDelayMillis = Integer.getInteger("station.arrivalDelayMax", config.maxArrivalDelayMillis);
+        config.startupGapMillis = Integer.getInteger("station.startupGap", config.startupGapMillis);
+        config.arrivalGapMillis = Integer.getInteger("station.arrivalGap", config.arrivalGapMillis);
+        config.serviceMillis = Integer.getInteger("station.serviceMillis", config.serviceMillis);
+        config.seed = Long.getLong("station.seed", config.seed);
+        config.drainTimeoutMillis = Long.getLong("station.drainTimeout", config.drainTimeoutMillis);
+        config.readAhead = Integer.getInteger("station.readAhead", config.readAhead);
+        config.shards = Integer.getInteger("station.shards", config.shards);
+        config.balancer = Balancer.Policy.valueOf(
+                System.getProperty("station.balancer", config.balancer.name()).trim().toUpperCase());
+        config.admission = Admission.valueOf(
+                System.getProperty("station.admission", config.admission.name()).trim().toUpperCase());
+        config.admissionTimeoutMillis = Long.getLong("station.admission.timeout", config.admissionTimeoutMillis);
+        config.autoscale = Boolean.parseBoolean(System.getProperty("station.autoscale", String.valueOf(config.autoscale)));
+        config.minPumps = Integer.getInteger("station.autoscale.min", config.minPumps);
+        config.maxPumps = Integer.getInteger("station.autoscale.max", config.maxPumps);
+        config.scaleUpQueue = Integer.getInteger("station.autoscale.upQueue", config.scaleUpQueue);
+        config.scaleUpWaitMillis = Integer.getInteger("station.autoscale.upWait", config.scaleUpWaitMillis);
+        config.scaleDownQueue = Integer.getInteger("station.autoscale.downQueue", config.scaleDownQueue);
+        config.scaleDownWaitMillis = Integer.getInteger("station.autoscale.downWait", config.scaleDownWaitMillis);
+        config.scalePercentile = Double.parseDouble(
+                System.getProperty("station.autoscale.percentile", String.valueOf(config.scalePercentile)));
+        config.scaleIntervalMillis = Integer.getInteger("station.autoscale.interval", config.scaleIntervalMillis);
+        config.scaleCooldownMillis = Integer.getInteger("station.autoscale.cooldown", config.scaleCooldownMillis);
+        config.scaleTicks = Integer.getInteger("station.autoscale.ticks", config.scaleTicks);
+        config.events = Events.valueOf(System.getProperty("station.events", config.events.name()).trim().toUpperCase());
+        config.eventsFile = Path.of(System.getProperty("station.events.file", config.eventsFile.toString()));
+        config.eventRecords = Integer.getInteger("station.events.records", config.eventRecords);
+        return config;
+    }
+
+    public WaitingArea.Mode waitingAreaMode() {
+        return waitingAreaMode;
+    }
+
+    public StationConfig waitingAreaMode(WaitingArea.Mode mode) {
+        waitingAreaMode = mode;
+        return this;
+    }
+
+    public CarThreads carThreads() {
+        return carThreads;
+    }
+
+    public StationConfig carThreads(CarThreads carThreads) {
+        this.carThreads = carThreads;
+        return this;
+    }
+
+    public int carPoolSize() {
+        return carPoolSize;
+    }
+
+    public StationConfig carPoolSize(int size) {
+        carPoolSize = size;
+        return this;
+    }
+
+    public Engine engine() {
+        return engine;
+    }
+
+    public StationConfig engine(Engine engine) {
+        this.engine = engine;
+        return this;
+    }
+
+    /**
+     * Sets the random delay a car needs to reach the waiting area after it is added.
+     */
+    public StationConfig arrivalDelayMillis(int min, int max) {
+        minArrivalDelayMillis = min;
+        maxArrivalDelayMillis = max;
+        return this;
+    }
+
+    public int arrivalDelayMillis(RandomGenerator random) {
+        return maxArrivalDelayMillis > minArrivalDelayMillis
+                ? random.nextInt(minArrivalDelayMillis, maxArrivalDelayMillis)
+                : minArrivalDelayMillis;
+    }
+
+    /**
+     * Sets the pause between two cars being added: the first numberOfPumps cars are spaced
+     * by the startup gap so that each pump picks one up in order, the rest by the arrival gap.
+     */
+    public StationConfig arrivalGapMillis(int startupGap, int arrivalGap) {
+        startupGapMillis = startupGap;
+        arrivalGapMillis = arrivalGap;
+        return this;
+    }
+
+    public int gapAfter(long carIndex, int numberOfPumps) {
+        return carIndex < numberOfPumps ? startupGapMillis : arrivalGapMillis;
+    }
+
+    public int serviceMillis() {
+        return serviceMillis;
+    }
+
+    public StationConfig serviceMillis(int millis) {
+        serviceMillis = millis;
+        return this;
+    }
+
+    /**
+     * Service time of a service class, set with -Dstation.service.&lt;class&gt;=millis;
+     * the default service time for a null or unknown class.
+     */
+    public int serviceMillis(String serviceClass) {
+        return serviceClass == null ? serviceMillis : Integer.getInteger("station.service." + serviceClass, serviceMillis);
+    }
+
+    /**
+     * Priority of a service class, set with -Dstation.priority.&lt;class&gt;=n; 0 for a null
+     * or unknown class. Higher priorities are shed last.
+     */
+    public int priority(String serviceClass) {
+        return serviceClass == null ? 0 : Integer.getInteger("station.priority." + serviceClass, 0);
+    }
+
+    /**
+     * What a threaded car does when the waiting area is full.
+     */
+    public Admission admission() {
+        return admission;
+    }
+
+    public StationConfig admission(Admission admission) {
+        this.admission = admission;
+        return this;
+    }
+
+    /**
+     * How long a car waits for a slot under the TIMEOUT admission policy.
+     */
+    public long admissionTimeoutMillis() {
+        return admissionTimeoutMillis;
+    }
+
+    public StationConfig admissionTimeoutMillis(long millis) {
+        admissionTimeoutMillis = millis;
+        return this;
+    }
+
+    /**
+     * Seed of the discrete-event engine, which makes its runs repeatable.
+     */
+    public long seed() {
+        return seed;
+    }
+
+    public StationConfig seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * How long a batch run waits for the station to drain before stopping it hard;
+     * Long.MAX_VALUE when no limit is set.
+     */
+    public long drainTimeoutMillis() {
+        return drainTimeoutMillis > 0 ? drainTimeoutMillis : Long.MAX_VALUE;
+    }
+
+    public StationConfig drainTimeoutMillis(long millis) {
+        drainTimeoutMillis = millis;
+        return this;
+    }
+
+    /**
+     * How many cars a streamed workload may have in the station at once before the
+     * reader waits for some to leave.
+     */
+    public int readAhead() {
+        return readAhead;
+    }
+
+    public StationConfig readAhead(int cars) {
+        readAhead = cars;
+        return this;
+    }
+
+    /**
+     * How many stations a batch run spreads the cars over; more than 1 runs a {@link StationCluster}.
+     */
+    public int shards() {
+        return shards;
+    }
+
+    public StationConfig shards(int shards) {
+        this.shards = shards;
+        return this;
+    }
+
+    /**
+     * How a {@link StationCluster} picks the shard for each car.
+     */
+    public Balancer.Policy balancer() {
+        return balancer;
+    }
+
+    public StationConfig balancer(Balancer.Policy policy) {
+        balancer = policy;
+        return this;
+    }
+
+    /**
+     * Whether a threaded station adds and retires pumps with the load (see {@link PumpAutoscaler}).
+     */
+    public boolean autoscale() {
+        return autoscale;
+    }
+
+    public StationConfig autoscale(boolean autoscale) {
+        this.autoscale = autoscale;
+        return this;
+    }
+
+    /**
+     * Sets the bounds the autoscaler keeps the number of pumps in; max 0 for twice the
+     * pumps the station starts with.
+     */
+    public StationConfig autoscalePumps(int min, int max) {
+        minPumps = min;
+        maxPumps = max;
+        return this;
+    }
+
+    public int minPumps() {
+        return Math.max(1, minPumps);
+    }
+
+    public int maxPumps(int initialPumps) {
+        return Math.max(initialPumps, maxPumps > 0 ? maxPumps : 2 * initialPumps);
+    }
+
+    /**
+     * Sets when a pump is added: once more than carsPerPump cars per pump are waiting, or
+     * the recent queue wait percentile is above waitMillis.
+     */
+    public StationConfig scaleUpAt(int carsPerPump, int waitMillis) {
+        scaleUpQueue = carsPerPump;
+        scaleUpWaitMillis = waitMillis;
+        return this;
+    }
+
+    public int scaleUpQueue() {
+        return scaleUpQueue;
+    }
+
+    public int scaleUpWaitMillis() {
+        return scaleUpWaitMillis;
+    }
+
+    /**
+     * Sets when a pump is retired: once at most carsPerPump cars per pump are waiting and
+     * the recent queue wait percentile is below waitMillis. Keep both well under the
+     * scale-up thresholds, or the pool keeps growing and shrinking.
+     */
+    public StationConfig scaleDownAt(int carsPerPump, int waitMillis) {
+        scaleDownQueue = carsPerPump;
+        scaleDownWaitMillis = waitMillis;
+        return this;
+    }
+
+    public int scaleDownQueue() {
+        return scaleDownQueue;
+    }
+
+    public int scaleDownWaitMillis() {
+        return scaleDownWaitMillis;
+    }
+
+    /**
+     * Which percentile of the recent queue waits the autoscaler looks at (90 by default).
+     */
+    public double scalePercentile() {
+        return scalePercentile;
+    }
+
+    public StationConfig scalePercentile(double percentile) {
+        scalePercentile = percentile;
+        return this;
+    }
+
+    /**
+     * Sets how often the autoscaler looks at the station, how long it leaves the pool alone
+     * after a change, and for how many looks in a row a threshold must hold before it acts.
+     */
+    public StationConfig scaleTiming(int intervalMillis, int cooldownMillis, int ticks) {
+        scaleIntervalMillis = intervalMillis;
+        scaleCooldownMillis = cooldownMillis;
+        scaleTicks = ticks;
+        return this;
+    }
+
+    public int scaleIntervalMillis() {
+        return Math.max(1, scaleIntervalMillis);
+    }
+
+    public int scaleCooldownMillis() {
+        return scaleCooldownMillis;
+    }
+
+    public int scaleTicks() {
+        return Math.max(1, scaleTicks);
+    }
+
+    /**
+     * How the LANES waiting area spreads arriving cars over the pumps' lanes.
+     */
+    public LaneWaitingArea.Distribution laneDistribution() {
+        return laneDistribution;
+    }
+
+    public StationConfig laneDistribution(LaneWaitingArea.Distribution distribution) {
+        laneDistribution = distribution;
+        return this;
+    }
+
+    /**
+     * Creates the waiting area of a station: the configured mode, one lane per pump in
+     * LANES mode, and the handoff fast path in front when it is on. FAIR mode never gets
+     * the handoff, since a handed-over car skips the queue.
+     */
+    public <E> WaitingArea<E> newWaitingArea(int capacity, int numberOfPumps) {
+        return newWaitingArea(capacity, numberOfPumps, car -> 0);
+    }
+
+    /**
+     * @param priority The cars' priorities; with SHED admission the area is a
+     *                 {@link SheddingWaitingArea} whatever the configured mode.
+     */
+    public <E> WaitingArea<E> newWaitingArea(int capacity, int numberOfPumps, ToIntFunction<? super E> priority) {
+        WaitingArea<E> area;
+        if (admission == Admission.SHED) {
+            area = new SheddingWaitingArea<>(capacity, priority);
+        } else if (waitingAreaMode == WaitingArea.Mode.LANES) {
+            area = new LaneWaitingArea<>(capacity, numberOfPumps, laneDistribution);
+        } else {
+            area = WaitingArea.create(waitingAreaMode, capacity);
+        }
+        // A handoff would let a car overtake those waiting to get into a fair area, unless it has no room at all
+        boolean direct = handoff && (!(area instanceof FairWaitingArea) || capacity <= 0);
+        return direct ? new HandoffWaitingArea<>(area) : area;
+    }
+
+    /**
+     * Whether a car that finds a pump idle hands itself over instead of queueing.
+     */
+    public boolean handoff() {
+        return handoff;
+    }
+
+    public StationConfig handoff(boolean handoff) {
+        this.handoff = handoff;
+        return this;
+    }
+
+    /**
+     * Most cars a threaded pump claims from the waiting area at once (1 by default).
+     */
+    public int batchSize() {
+        return batchSize;
+    }
+
+    public StationConfig batchSize(int cars) {
+        batchSize = cars;
+        return this;
+    }
+
+    /**
+     * Whether a batch is also capped at the pump's share of the queued cars.
+     */
+    public boolean batchFairShare() {
+        return batchFairShare;
+    }
+
+    public StationConfig batchFairShare(boolean fairShare) {
+        batchFairShare = fairShare;
+        return this;
+    }
+
+    public PumpEngine pumpEngine() {
+        return pumpEngine;
+    }
+
+    public StationConfig pumpEngine(PumpEngine pumpEngine) {
+        this.pumpEngine = pumpEngine;
+        return this;
+    }
+
+    /**
+     * Event-loop threads of the reactor pump engine.
+     */
+    public int reactorThreads() {
+        return reactorThreads;
+    }
+
+    public StationConfig reactorThreads(int threads) {
+        reactorThreads = threads;
+        return this;
+    }
+
+    public Arrivals arrivals() {
+        return arrivals;
+    }
+
+    public StationConfig arrivals(Arrivals arrivals) {
+        this.arrivals = arrivals;
+        return this;
+    }
+
+    public Events events() {
+        return events;
+    }
+
+    public StationConfig events(Events events) {
+        this.events = events;
+        return this;
+    }
+
+    /**
+     * Sends the events to a file instead of the console.
+     */
+    public StationConfig eventsFile(Path file) {
+        events = Events.FILE;
+        eventsFile = file;
+        return this;
+    }
+
+    /**
+     * How many events an {@link EventRecorder} holds for rendering on its own thread; 0
+     * (the default) renders every event on the car or pump thread that reports it.
+     */
+    public int eventRecords() {
+        return eventRecords;
+    }
+
+    public StationConfig eventRecords(int slots) {
+        eventRecords = slots;
+        return this;
+    }
+
+    /**
+     * Where the console station prints its lines, the CONSOLE events included; standard
+     * output unless set.
+     */
+    public ConsoleWriter console() {
+        return console != null ? console : ConsoleWriter.stdout();
+    }
+
+    public StationConfig console(ConsoleWriter writer) {
+        console = writer;
+        return this;
+    }
+
+    /**
+     * Creates the sink a console station reports its events to, behind an EventRecorder
+     * if station.events.records is set. Stations that share one file should share the
+     * sink too.
+     * @throws UncheckedIOException If the events file cannot be opened.
+     */
+    public StationEventSink newEventSink() {
+        return newEventSink("");
+    }
+
+    /**
+     * @param threadPrefix Put in front of the EventRecorder thread's name, to tell stations apart.
+     */
+    public StationEventSink newEventSink(String threadPrefix) {
+        StationEventSink sink;
+        switch (events) {
+            case NONE:
+                return StationEventSink.none();
+            case FILE:
+                try {
+                    sink = StationEventSink.file(eventsFile);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot open events file " + eventsFile, e);
+                }
+                break;
+            case CONSOLE:
+            default:
+                sink = StationEventSink.console(console());
+        }
+        return eventRecords > 0 ? new EventRecorder(sink, eventRecords, threadPrefix + "Station-Events") : sink;
+    }
+
+    /**
+     * Creates the timer that releases pending arrivals, or null when cars sleep instead.
+     * One turn of the wheel covers a second, longer delays take extra turns.
+     */
+    public TimingWheel newArrivalWheel() {
+        return newArrivalWheel("");
+    }
+
+    /**
+     * @param threadPrefix Put in front of the timer thread's name, to tell stations apart.
+     */
+    public TimingWheel newArrivalWheel(String threadPrefix) {
+        if (arrivals != Arrivals.WHEEL) {
+            return null;
+        }
+        int tick = Math.max(1, wheelTickMillis);
+        return new TimingWheel(threadPrefix + "Arrival-Timer", tick, TimeUnit.MILLISECONDS, 1000 / tick);
+    }
+
+    /**
+     * Creates the executor that runs the Car threads. Cars spend almost all of their time
+     * sleeping or parked in Semaphore.waiting(), which unmounts a virtual thread from its carrier.
+     */
+    public ExecutorService newCarExecutor() {
+        return newCarExecutor("");
+    }
+
+    /**
+     * @param threadPrefix Put in front of the Car thread names, to tell stations apart.
+     */
+    public ExecutorService newCarExecutor(String threadPrefix) {
+        String name = threadPrefix + "Car-";
+        switch (carThreads) {
+            case PLATFORM:
+                return Executors.newThreadPerTaskExecutor(Thread.ofPlatform().name(name, 1).factory());
+            case POOLED:
+                return Executors.newFixedThreadPool(carPoolSize, Thread.ofPlatform().name(name, 1).factory());
+            case VIRTUAL:
+            default:
+                return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name, 1).factory());
+        }
+    }
+}
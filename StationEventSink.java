@@ -0,0 +1,138 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Receives what happens to the cars and bays of a station, one method per kind of event,
+ * called on the car and pump threads as it happens. The station engines only report
+ * events; what is made of them (console lines, the GUI dashboard, a log file, nothing)
+ * is up to the sink.
+ *
+ * Every method does nothing by default, so {@link #none()} is an empty class: once the
+ * JIT sees it is the only sink, the calls and their arguments cost nothing at all. Car
+ * names are passed as they are and pump ids as ints, so a sink that ignores an event
+ * never pays for formatting it.
+ */
+public interface StationEventSink {
+
+    /**
+     * The car has reached the station and is on its way to the waiting area.
+     */
+    default void arrived(String car, long atNanos) {
+    }
+
+    /**
+     * The car got a slot in the waiting area.
+     * @param queueLength Cars in the waiting area just after it got in.
+     * @param pumpsBusy Whether every pump was busy when it arrived, so it has to wait.
+     */
+    default void queued(String car, int queueLength, boolean pumpsBusy, long atNanos) {
+    }
+
+    /**
+     * A pump has taken the car and started serving it at its bay.
+     * @param queueLength Cars left in the waiting area.
+     */
+    default void serviceStarted(int pumpId, String car, int queueLength, long atNanos) {
+    }
+
+    default void serviceFinished(int pumpId, String car, long atNanos) {
+    }
+
+    /**
+     * The pump's bay is free for the next car.
+     */
+    default void bayFreed(int pumpId, long atNanos) {
+    }
+
+    /**
+     * Writes out whatever the sink still holds; called when the station stops.
+     */
+    default void flush() {
+    }
+
+    /**
+     * Writes out whatever the sink still holds and stops any thread of its own; called when
+     * the station stops. Stations may share a sink, so events that come after it still
+     * have to be taken.
+     */
+    default void close() {
+        flush();
+    }
+
+    /**
+     * Ignores every event.
+     */
+    static StationEventSink none() {
+        return None.INSTANCE;
+    }
+
+    /**
+     * The familiar console lines ("Pump 2: C7 begins service at Bay 2") on standard output,
+     * through {@link ConsoleWriter#stdout()}.
+     */
+    static StationEventSink console() {
+        return console(ConsoleWriter.stdout());
+    }
+
+    /**
+     * The console lines, buffered in the writer; flush() writes them out.
+     */
+    static StationEventSink console(ConsoleWriter console) {
+        return new TextEventSink() {
+            @Override
+            protected void write(CharSequence lines) {
+                console.append(lines);
+            }
+
+            @Override
+            public void flush() {
+                console.flush();
+            }
+        };
+    }
+
+    /**
+     * The console lines, each preceded by its System.nanoTime(), appended to a file. The
+     * lines are buffered and only reach the file when the buffer fills up or on flush().
+     */
+    static StationEventSink file(Path path) throws IOException {
+        BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return new TextEventSink(true) {
+            @Override
+            protected void write(CharSequence lines) {
+                try {
+                    synchronized (writer) {
+                        writer.append(lines);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void flush() {
+                try {
+                    synchronized (writer) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    // A class of its own, so that a call site that only ever sees it can be inlined away.
+    final class None implements StationEventSink {
+        static final None INSTANCE = new None();
+
+        private None() {
+        }
+    }
+}
@@ -0,0 +1,221 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-car latencies and per-pump utilization of a threaded station. Each served car is
+ * recorded once, by its pump, from the timestamps taken along its way:
+ *
+ * <pre>
+ *   arrived -> entered (blocked on a full waiting area)
+ *   entered -> dequeued (waiting in the area)
+ *   dequeued -> started (waiting for a bay)
+ *   started -> finished (service)
+ * </pre>
+ *
+ * All timestamps are System.nanoTime(); recording does not allocate.
+ */
+public class StationMetrics {
+    private volatile long origin = System.nanoTime();
+    private final LatencyHistogram admission = new LatencyHistogram();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram bayWait = new LatencyHistogram();
+    private final LatencyHistogram service = new LatencyHistogram();
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final AtomicLongArray pumpBusyNanos;
+    private final AtomicLongArray pumpServed;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedCars = new LongAdder();
+
+    public StationMetrics(int numberOfPumps) {
+        pumpBusyNanos = new AtomicLongArray(numberOfPumps);
+        pumpServed = new AtomicLongArray(numberOfPumps);
+    }
+
+    /**
+     * Utilization is measured from here; defaults to when the metrics were created.
+     */
+    public void start(long origin) {
+        this.origin = origin;
+    }
+
+    public void recordCar(int pumpId, long arrivedAt, long enteredAt, long dequeuedAt, long startedAt, long finishedAt) {
+        admission.record(enteredAt - arrivedAt);
+        queueWait.record(dequeuedAt - enteredAt);
+        bayWait.record(startedAt - dequeuedAt);
+        service.record(finishedAt - startedAt);
+        total.record(finishedAt - arrivedAt);
+        pumpBusyNanos.getAndAdd(pumpId - 1, finishedAt - startedAt);
+        pumpServed.getAndIncrement(pumpId - 1);
+    }
+
+    /**
+     * Called each time a pump claims cars from the waiting area.
+     */
+    public void recordBatch(int cars) {
+        batches.increment();
+        batchedCars.add(cars);
+    }
+
+    public Snapshot snapshot() {
+        long elapsed = Math.max(1, System.nanoTime() - origin);
+        int pumps = pumpBusyNanos.length();
+        double[] utilization = new double[pumps];
+        long[] served = new long[pumps];
+        for (int i = 0; i < pumps; i++) {
+            utilization[i] = Math.min(1.0, (double) pumpBusyNanos.get(i) / elapsed);
+            served[i] = pumpServed.get(i);
+        }
+        return new Snapshot(admission.snapshot(), queueWait.snapshot(), bayWait.snapshot(), service.snapshot(),
+                total.snapshot(), utilization, served, elapsed, batches.sum(), batchedCars.sum());
+    }
+
+    /**
+     * The queue waits alone, cheaper than a full {@link #snapshot()} when sampled often.
+     */
+    public LatencyHistogram.Snapshot queueWaitSnapshot() {
+        return queueWait.snapshot();
+    }
+
+    public static final class Snapshot {
+        private final LatencyHistogram.Snapshot admission;
+        private final LatencyHistogram.Snapshot queueWait;
+        private final LatencyHistogram.Snapshot bayWait;
+        private final LatencyHistogram.Snapshot service;
+        private final LatencyHistogram.Snapshot total;
+        private final double[] utilization;
+        private final long[] served;
+        private final long elapsedNanos;
+        private final long batches;
+        private final long batchedCars;
+
+        private Snapshot(LatencyHistogram.Snapshot admission, LatencyHistogram.Snapshot queueWait,
+                         LatencyHistogram.Snapshot bayWait, LatencyHistogram.Snapshot service,
+                         LatencyHistogram.Snapshot total, double[] utilization, long[] served, long elapsedNanos,
+                         long batches, long batchedCars) {
+            this.admission = admission;
+            this.queueWait = queueWait;
+            this.bayWait = bayWait;
+            this.service = service;
+            this.total = total;
+            this.utilization = utilization;
+            this.served = served;
+            this.elapsedNanos = elapsedNanos;
+            this.batches = batches;
+            this.batchedCars = batchedCars;
+        }
+
+        /**
+         * The metrics of several stations as one: latencies over all their cars, and their
+         * pumps numbered one after the other in the order given.
+         */
+        public static Snapshot combine(List<Snapshot> snapshots) {
+            Snapshot first = snapshots.get(0);
+            LatencyHistogram.Snapshot admission = first.admission;
+            LatencyHistogram.Snapshot queueWait = first.queueWait;
+            LatencyHistogram.Snapshot bayWait = first.bayWait;
+            LatencyHistogram.Snapshot service = first.service;
+            LatencyHistogram.Snapshot total = first.total;
+            double[] utilization = first.utilization;
+            long[] served = first.served;
+            long elapsed = first.elapsedNanos;
+            long batches = first.batches;
+            long batchedCars = first.batchedCars;
+            for (Snapshot next : snapshots.subList(1, snapshots.size())) {
+                admission = admission.merge(next.admission);
+                queueWait = queueWait.merge(next.queueWait);
+                bayWait = bayWait.merge(next.bayWait);
+                service = service.merge(next.service);
+                total = total.merge(next.total);
+                int pumps = served.length;
+                utilization = Arrays.copyOf(utilization, pumps + next.served.length);
+                served = Arrays.copyOf(served, pumps + next.served.length);
+                System.arraycopy(next.utilization, 0, utilization, pumps, next.served.length);
+                System.arraycopy(next.served, 0, served, pumps, next.served.length);
+                elapsed = Math.max(elapsed, next.elapsedNanos);
+                batches += next.batches;
+                batchedCars += next.batchedCars;
+            }
+            return new Snapshot(admission, queueWait, bayWait, service, total, utilization, served, elapsed,
+                    batches, batchedCars);
+        }
+
+        /**
+         * Time from reaching the station to getting into the waiting area.
+         */
+        public LatencyHistogram.Snapshot admission() {
+            return admission;
+        }
+
+        /**
+         * Time spent in the waiting area until a pump took the car.
+         */
+        public LatencyHistogram.Snapshot queueWait() {
+            return queueWait;
+        }
+
+        /**
+         * Time between a pump taking the car and getting a bay.
+         */
+        public LatencyHistogram.Snapshot bayWait() {
+            return bayWait;
+        }
+
+        public LatencyHistogram.Snapshot service() {
+            return service;
+        }
+
+        /**
+         * Time from reaching the station to leaving the bay.
+         */
+        public LatencyHistogram.Snapshot total() {
+            return total;
+        }
+
+        public int numberOfPumps() {
+            return served.length;
+        }
+
+        /**
+         * Share of the elapsed time the pump spent serving, between 0 and 1.
+         */
+        public double utilization(int pumpId) {
+            return utilization[pumpId - 1];
+        }
+
+        public long served(int pumpId) {
+            return served[pumpId - 1];
+        }
+
+        public double elapsedMillis() {
+            return elapsedNanos / 1e6;
+        }
+
+        /**
+         * Average number of cars a pump claimed from the waiting area at once, 0 if none were.
+         */
+        public double meanBatchSize() {
+            return batches == 0 ? 0 : (double) batchedCars / batches;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Station metrics after %.1f ms:%n", elapsedMillis()));
+            sb.append("  admission:  ").append(admission).append(System.lineSeparator());
+            sb.append("  queue wait: ").append(queueWait).append(System.lineSeparator());
+            sb.append("  bay wait:   ").append(bayWait).append(System.lineSeparator());
+            sb.append("  service:    ").append(service).append(System.lineSeparator());
+            sb.append("  total:      ").append(total);
+            if (batches > 0) {
+                sb.append(System.lineSeparator()).append(String.format("  mean batch: %.2f cars", meanBatchSize()));
+            }
+            for (int i = 0; i < served.length; i++) {
+                sb.append(System.lineSeparator())
+                        .append(String.format("  pump %d: %d cars, %.1f%% busy", i + 1, served[i], utilization[i] * 100));
+            }
+            return sb.toString();
+        }
+    }
+}
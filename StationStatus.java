@@ -0,0 +1,82 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * What the dashboard shows, written by pump and car threads without touching Swing.
+ * The GUI samples it on a timer, so the EDT does the same amount of work per frame
+ * however many cars go through.
+ */
+public class StationStatus {
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final AtomicInteger activePumps = new AtomicInteger();
+    private final AtomicReferenceArray<String> pumpCars; // car at pump id-1, null while free
+    private volatile boolean changed = true;
+
+    public StationStatus(int numPumps) {
+        pumpCars = new AtomicReferenceArray<>(Math.max(0, numPumps));
+    }
+
+    public void setQueueSize(int size) {
+        queueSize.set(size);
+        changed = true;
+    }
+
+    public void setActivePumps(int active) {
+        activePumps.set(active);
+        changed = true;
+    }
+
+    public int incrementActivePumps() {
+        int active = activePumps.incrementAndGet();
+        changed = true;
+        return active;
+    }
+
+    public int decrementActivePumps() {
+        int active = activePumps.updateAndGet(n -> n > 0 ? n - 1 : 0);
+        changed = true;
+        return active;
+    }
+
+    public void setPumpBusy(int pumpId, String carName) {
+        if (pumpId >= 1 && pumpId <= pumpCars.length()) {
+            pumpCars.set(pumpId - 1, carName);
+            changed = true;
+        }
+    }
+
+    public void setPumpFree(int pumpId) {
+        setPumpBusy(pumpId, null);
+    }
+
+    /**
+     * Returns whether anything was written since the previous call, and resets the flag.
+     * Writes that race with the reader set it again and show up on the next frame.
+     */
+    public boolean takeChanges() {
+        if (!changed) {
+            return false;
+        }
+        changed = false;
+        return true;
+    }
+
+    public int queueSize() {
+        return queueSize.get();
+    }
+
+    public int activePumps() {
+        return activePumps.get();
+    }
+
+    public int numPumps() {
+        return pumpCars.length();
+    }
+
+    /**
+     * @return The car being served at the pump, or null if it is free.
+     */
+    public String pumpCar(int pumpId) {
+        return pumpCars.get(pumpId - 1);
+    }
+}
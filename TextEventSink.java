@@ -0,0 +1,110 @@
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Renders station events as the lines the console station has always printed. The lines
+ * of one event are handed to {@link #write(CharSequence)} in one piece, so another pump's
+ * lines can come before or after them but never in between.
+ *
+ * All events are rendered into one builder, under a lock, and written before the lock
+ * is let go. The writes behind it are serialized anyway, so this costs little, and with a
+ * virtual thread per car a builder per thread would be an allocation per car. Behind an
+ * {@link EventRecorder} only the drainer thread renders, and the lock is never contended.
+ */
+public abstract class TextEventSink implements StationEventSink {
+    private static final String EOL = System.lineSeparator();
+
+    private final boolean timestamps;
+    private final ReentrantLock lock = new ReentrantLock(); // not a monitor, so waiting car threads stay virtual
+    private final StringBuilder text = new StringBuilder(256); // guarded by lock
+
+    protected TextEventSink() {
+        this(false);
+    }
+
+    /**
+     * @param timestamps Whether every line starts with the event's System.nanoTime().
+     */
+    protected TextEventSink(boolean timestamps) {
+        this.timestamps = timestamps;
+    }
+
+    /**
+     * @param lines One or more complete lines, each ending with the line separator. Only
+     *              valid during the call: the builder behind it is reused afterwards.
+     *              Called under the lock, so one call at a time.
+     */
+    protected abstract void write(CharSequence lines);
+
+    @Override
+    public void arrived(String car, long atNanos) {
+        lock.lock();
+        try {
+            text.setLength(0);
+            line(atNanos).append(car).append(" arrived").append(EOL);
+            write(text);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void queued(String car, int queueLength, boolean pumpsBusy, long atNanos) {
+        if (pumpsBusy) {
+            lock.lock();
+            try {
+                text.setLength(0);
+                line(atNanos).append(car).append(" arrived and waiting").append(EOL);
+                write(text);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void serviceStarted(int pumpId, String car, int queueLength, long atNanos) {
+        lock.lock();
+        try {
+            text.setLength(0);
+            pump(atNanos, pumpId).append(car).append(" Occupied").append(EOL);
+            pump(atNanos, pumpId).append(car).append(" login").append(EOL);
+            pump(atNanos, pumpId).append(car).append(" begins service at Bay ").append(pumpId).append(EOL);
+            write(text);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void serviceFinished(int pumpId, String car, long atNanos) {
+        lock.lock();
+        try {
+            text.setLength(0);
+            pump(atNanos, pumpId).append(car).append(" finishes service").append(EOL);
+            write(text);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bayFreed(int pumpId, long atNanos) {
+        lock.lock();
+        try {
+            text.setLength(0);
+            pump(atNanos, pumpId).append("Bay ").append(pumpId).append(" is now free").append(EOL);
+            write(text);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Both called holding the lock.
+    private StringBuilder line(long atNanos) {
+        return timestamps ? text.append(atNanos).append(' ') : text;
+    }
+
+    private StringBuilder pump(long atNanos, int pumpId) {
+        return line(atNanos).append("Pump ").append(pumpId).append(": ");
+    }
+}
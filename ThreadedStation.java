@@ -0,0 +1,51 @@
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A threaded station as a batch run drives it: a single {@link ServiceStationConsole}, or a
+ * {@link StationCluster} that spreads the cars over several of them.
+ */
+public interface ThreadedStation {
+
+    void startPumps();
+
+    /**
+     * Adds a car that reaches the waiting area after its arrival delay, where the
+     * admission policy decides whether it gets in.
+     * @param priority Cars of higher priority are shed last (see StationConfig.Admission).
+     * @throws IllegalStateException If the station is shutting down.
+     */
+    void addCar(String carName, int serviceMillis, int priority);
+
+    /**
+     * Lets a car into the waiting area right away if there is room, without waiting.
+     * @return false if the car was turned away.
+     * @throws IllegalStateException If the station is shutting down.
+     */
+    boolean tryEnter(String carName, int serviceMillis, int priority);
+
+    int numberOfPumps();
+
+    /**
+     * Waits until every car added so far has been served.
+     * @return false if the timeout elapsed first.
+     */
+    boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Waits until at most {@code limit} cars added so far are still unserved.
+     * @return false if the timeout elapsed first.
+     */
+    boolean awaitPendingAtMost(long limit, long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Cars added but not yet served.
+     */
+    long pendingCars();
+
+    QueueStats stats();
+
+    /**
+     * Stops right away: cars still waiting for a slot and cars being served are abandoned.
+     */
+    void shutdown();
+}
@@ -0,0 +1,154 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timing wheel: delayed tasks are dropped into one of a fixed ring of buckets by
+ * their due tick and a single timer thread runs each bucket as its tick comes round.
+ * Scheduling is O(1) and a pending task costs one small object instead of a sleeping thread,
+ * so hundreds of thousands of them are cheap.
+ *
+ * Tasks run on the timer thread and must not block; hand anything that may wait to an
+ * executor. A task fires no earlier than its delay and at most about one tick later.
+ */
+public final class TimingWheel {
+
+    private static final class Entry {
+        final Runnable task;
+        final long deadline; // nanos after the wheel started
+        long rounds;         // full turns of the wheel left before it is due
+        Entry next;
+
+        Entry(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+    }
+
+    private final long tickNanos;
+    private final Entry[] buckets; // only touched by the timer thread
+    private final int mask;
+    private final ConcurrentLinkedQueue<Entry> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final long origin = System.nanoTime();
+    private final Thread worker;
+    private volatile boolean idle;
+    private volatile boolean stopped;
+    private long tick;
+
+    /**
+     * @param wheelSize Number of buckets, rounded up to a power of two. One turn of the wheel
+     *                  should cover the common delays; longer ones just wait extra turns.
+     */
+    public TimingWheel(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        int size = Integer.highestOneBit(Math.max(2, wheelSize) - 1) << 1;
+        buckets = new Entry[size];
+        mask = size - 1;
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Runs the task on the timer thread once the delay has passed.
+     * @throws IllegalStateException If the wheel has been stopped.
+     */
+    public void schedule(Runnable task, long delay, TimeUnit unit) {
+        if (stopped) {
+            throw new IllegalStateException("Timing wheel is stopped");
+        }
+        pending.incrementAndGet();
+        incoming.add(new Entry(task, System.nanoTime() - origin + Math.max(0, unit.toNanos(delay))));
+        if (idle) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * Tasks scheduled but not run yet.
+     */
+    public long pending() {
+        return pending.get();
+    }
+
+    /**
+     * Stops the timer thread; tasks that have not run by then never will.
+     * @return How many tasks were dropped.
+     */
+    public long stop() {
+        stopped = true;
+        LockSupport.unpark(worker);
+        if (Thread.currentThread() != worker) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return pending.get();
+    }
+
+    private void run() {
+        while (!stopped) {
+            if (pending.get() == 0) {
+                // Nothing to time: sleep until schedule() wakes us, then pick up from the current tick
+                idle = true;
+                while (pending.get() == 0 && !stopped) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                tick = (System.nanoTime() - origin) / tickNanos;
+                continue;
+            }
+            long tickEnd = (tick + 1) * tickNanos;
+            long now;
+            while ((now = System.nanoTime() - origin) < tickEnd && !stopped) {
+                LockSupport.parkNanos(this, tickEnd - now);
+            }
+            if (stopped) {
+                break;
+            }
+            transferIncoming();
+            expire((int) (tick & mask), tickEnd);
+            tick++;
+        }
+    }
+
+    private void transferIncoming() {
+        Entry entry;
+        while ((entry = incoming.poll()) != null) {
+            long due = entry.deadline / tickNanos;
+            entry.rounds = (due - tick) / buckets.length;
+            int index = (int) (Math.max(due, tick) & mask); // late ones go out with this tick
+            entry.next = buckets[index];
+            buckets[index] = entry;
+        }
+    }
+
+    private void expire(int index, long tickEnd) {
+        Entry previous = null;
+        Entry entry = buckets[index];
+        while (entry != null) {
+            Entry next = entry.next;
+            if (entry.rounds <= 0 && entry.deadline < tickEnd) {
+                if (previous == null) {
+                    buckets[index] = next;
+                } else {
+                    previous.next = next;
+                }
+                pending.decrementAndGet();
+                try {
+                    entry.task.run();
+                } catch (RuntimeException e) {
+                    System.err.println(Thread.currentThread().getName() + ": scheduled task failed: " + e);
+                }
+            } else {
+                entry.rounds--;
+                previous = entry;
+            }
+            entry = next;
+        }
+    }
+}
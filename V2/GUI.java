@@ -1,7 +1,9 @@
 import javax.swing.*;
+import javax.swing.Timer;
 import java.awt.*;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 public class GUI extends JFrame {
 
@@ -9,21 +11,31 @@ public class GUI extends JFrame {
     private JLabel queueLabel, pumpsLabel;
     private JPanel pumpsPanel;
     private final Map<Integer, JLabel> pumpLabels = new HashMap<>();
-     
-    public int activePumps = 0; 
-    public synchronized void incrementActivePumps() {
-        activePumps++;
-        updatePumpCount(activePumps);
+    private static final Color FREE = new Color(144, 238, 144); // أخضر (فاضي)
+    private static final Color BUSY = new Color(255, 99, 71);   // أحمر (مشغول)
+    private static final int FRAMES_PER_SECOND = Integer.getInteger("station.gui.fps", 30);
+
+    // Pumps and cars only write here; the timer below paints it at a fixed rate.
+    private final StationStatus status;
+    private final String[] shownCars;
+    private int shownQueue = -1, shownActive = -1;
+
+    public void incrementActivePumps() {
+        status.incrementActivePumps();
     }
-    
-    
-    public synchronized void decrementActivePumps() {
-        if (activePumps > 0) activePumps--;
-        updatePumpCount(activePumps);
+
+    public void decrementActivePumps() {
+        status.decrementActivePumps();
     }
     
 
+    public int activePumps() {
+        return status.activePumps();
+    }
+
     public GUI(int numPumps) {
+        status = new StationStatus(numPumps);
+        shownCars = new String[numPumps];
         setTitle("Service Station Dashboard");
         setSize(600, 500);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -71,6 +83,7 @@ public class GUI extends JFrame {
         logScroll.setPreferredSize(new Dimension(750, 180));
         add(logScroll, BorderLayout.EAST);
 
+        new Timer(1000 / FRAMES_PER_SECOND, e -> refresh()).start();
         setVisible(true);
     }
 
@@ -88,42 +101,52 @@ public class GUI extends JFrame {
         JLabel label = new JLabel("Pump " + id + " [FREE]", SwingConstants.CENTER);
         label.setFont(new Font("Segoe UI", Font.BOLD, 14));
         label.setOpaque(true);
-        label.setBackground(new Color(144, 238, 144)); // أخضر فاضي
+        label.setBackground(FREE);
         label.setBorder(BorderFactory.createLineBorder(Color.GRAY, 1));
         return label;
     }
 
     
     public void updateQueueSize(int size) {
-        SwingUtilities.invokeLater(() ->
-                queueLabel.setText("Queue: " + size)
-        );
+        status.setQueueSize(size);
     }
 
     public void updatePumpCount(int active) {
-        SwingUtilities.invokeLater(() ->
-                pumpsLabel.setText("Active Pumps: " + active)
-        );
+        status.setActivePumps(active);
     }
 
     public void setPumpBusy(int pumpId, String carName) {
-        SwingUtilities.invokeLater(() -> {
-            JLabel label = pumpLabels.get(pumpId);
-            if (label != null) {
-                label.setText("Pump " + pumpId + " --> " + carName);
-                label.setBackground(new Color(255, 99, 71)); // أحمر (مشغول)
-            }
-        });
+        status.setPumpBusy(pumpId, carName);
     }
 
     public void setPumpFree(int pumpId) {
-        SwingUtilities.invokeLater(() -> {
-            JLabel label = pumpLabels.get(pumpId);
-            if (label != null) {
-                label.setText("Pump " + pumpId + " [FREE]");
-                label.setBackground(new Color(144, 238, 144)); // أخضر (فاضي)
+        status.setPumpFree(pumpId);
+    }
+
+    // Runs on the EDT every frame; labels are only touched when their value changed.
+    private void refresh() {
+        if (!status.takeChanges()) {
+            return;
+        }
+        int queue = status.queueSize();
+        if (queue != shownQueue) {
+            queueLabel.setText("Queue: " + queue);
+            shownQueue = queue;
+        }
+        int active = status.activePumps();
+        if (active != shownActive) {
+            pumpsLabel.setText("Active Pumps: " + active);
+            shownActive = active;
+        }
+        for (int pumpId = 1; pumpId <= shownCars.length; pumpId++) {
+            String car = status.pumpCar(pumpId);
+            if (!Objects.equals(car, shownCars[pumpId - 1])) {
+                JLabel label = pumpLabels.get(pumpId);
+                label.setText(car == null ? "Pump " + pumpId + " [FREE]" : "Pump " + pumpId + " --> " + car);
+                label.setBackground(car == null ? FREE : BUSY);
+                shownCars[pumpId - 1] = car;
             }
-        });
+        }
     }
 
     
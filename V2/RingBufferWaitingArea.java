@@ -0,0 +1,83 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Array-backed multi-producer/multi-consumer ring buffer.
+ *
+ * Every cell carries a sequence number: a producer may write cell (pos % n) once its
+ * sequence equals pos, a consumer may read it once it equals pos + 1, and the consumer
+ * hands it back to the next lap by setting it to pos + n. Producers and consumers claim
+ * positions with an atomic increment on tail/head, so there is no shared lock and no
+ * allocation per car. The 'empty' and 'full' semaphores only count slots and cars.
+ */
+public class RingBufferWaitingArea implements WaitingArea {
+    private final String[] cells;
+    private final AtomicLongArray sequence;
+    private final AtomicLong head = new AtomicLong(); // next position a pump takes
+    private final AtomicLong tail = new AtomicLong(); // next position a car enters
+    private final Semaphore empty; // available slots
+    private final Semaphore full;  // cars waiting
+    private final int capacity;
+
+    public RingBufferWaitingArea(int capacity) {
+        this.capacity = capacity;
+        int length = Math.max(1, capacity);
+        cells = new String[length];
+        sequence = new AtomicLongArray(length);
+        for (int i = 0; i < length; i++) {
+            sequence.set(i, i);
+        }
+        empty = new Semaphore(capacity);
+        full = new Semaphore(0);
+    }
+
+    @Override
+    public void enter(String car) throws InterruptedException {
+        empty.waiting();
+        long pos = tail.getAndIncrement();
+        int index = (int) (pos % cells.length);
+        // The permit guarantees the cell is free or about to be: a pump that claimed it
+        // on the previous lap may still be reading it.
+        for (int spins = 0; sequence.get(index) != pos; spins++) {
+            backOff(spins);
+        }
+        cells[index] = car;
+        sequence.set(index, pos + 1);
+        full.signal();
+    }
+
+    @Override
+    public String take() throws InterruptedException {
+        full.waiting();
+        long pos = head.getAndIncrement();
+        int index = (int) (pos % cells.length);
+        // The car that owns this position may still be writing its name.
+        for (int spins = 0; sequence.get(index) != pos + 1; spins++) {
+            backOff(spins);
+        }
+        String car = cells[index];
+        cells[index] = null;
+        sequence.set(index, pos + cells.length);
+        empty.signal();
+        return car;
+    }
+
+    // The other side is mid-copy and finishes in a few instructions, unless it was descheduled.
+    private static void backOff(int spins) {
+        if (spins < 100) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,104 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Counting semaphore backed by an atomic permit count.
+ *
+ * waiting() first tries to take a permit with a single CAS, then spins for a short,
+ * adaptive number of rounds, and only then parks in a FIFO list of waiters. signal()
+ * adds a permit and unparks only the oldest waiter, instead of waking every thread
+ * blocked on the monitor like the old wait()/notifyAll() version (see MonitorSemaphore).
+ */
+public class Semaphore {
+    private static final int MAX_SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 256 : 0;
+    private static final int MIN_SPINS = 4;
+
+    private final AtomicInteger value;
+    private final ConcurrentLinkedQueue<Thread> waiters = new ConcurrentLinkedQueue<>();
+    // Grows when spinning pays off and shrinks when it does not. Racy on purpose: it is only a hint.
+    private int spins = MAX_SPINS == 0 ? 0 : MIN_SPINS;
+
+    public Semaphore() {
+        this(0);
+    }
+
+    public Semaphore(int val) {
+        value = new AtomicInteger(val);
+    }
+
+    // Wait operation 'p' ,'acquire'
+    public void waiting() throws InterruptedException {
+        if (tryAcquire()) {
+            return;
+        }
+        if (spin()) {
+            return;
+        }
+        park();
+    }
+
+    // Signal operation 'v','release'
+    public void signal() {
+        value.incrementAndGet();
+        unparkOldest();
+    }
+
+    public int get() {
+        return value.get();
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        while ((current = value.get()) > 0) {
+            if (value.compareAndSet(current, current - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean spin() {
+        int limit = spins;
+        for (int i = 0; i < limit; i++) {
+            Thread.onSpinWait();
+            if (value.get() > 0 && tryAcquire()) {
+                spins = Math.min(MAX_SPINS, limit * 2);
+                return true;
+            }
+        }
+        spins = Math.max(MAX_SPINS == 0 ? 0 : MIN_SPINS, limit / 2);
+        return false;
+    }
+
+    private void park() throws InterruptedException {
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+        try {
+            while (true) {
+                // Only the oldest waiter may take a permit, so parked threads are served in FIFO order.
+                if (waiters.peek() == current && tryAcquire()) {
+                    return;
+                }
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            waiters.remove(current);
+            // Pass the wakeup on if permits are left, either because several signals arrived
+            // together or because we were interrupted after being chosen.
+            if (value.get() > 0) {
+                unparkOldest();
+            }
+        }
+    }
+
+    private void unparkOldest() {
+        Thread oldest = waiters.peek();
+        if (oldest != null) {
+            LockSupport.unpark(oldest);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+import java.util.LinkedList;
+import java.util.Queue;
+
+/**
+ * The original bounded buffer: a LinkedList guarded by the mutex/empty/full semaphores.
+ * Kept as the reference mode to compare against {@link RingBufferWaitingArea}.
+ */
+public class SemaphoreWaitingArea implements WaitingArea {
+    private final Queue<String> waitingQueue = new LinkedList<>();
+    private final Semaphore mutex = new Semaphore(1);
+    private final Semaphore empty; // available slots
+    private final Semaphore full = new Semaphore(0); // cars waiting
+    private final int capacity;
+    private volatile int size;
+
+    public SemaphoreWaitingArea(int capacity) {
+        this.capacity = capacity;
+        empty = new Semaphore(capacity);
+    }
+
+    @Override
+    public void enter(String car) throws InterruptedException {
+        empty.waiting();
+        mutex.waiting();
+        try {
+            waitingQueue.add(car);
+            size = waitingQueue.size();
+        } finally {
+            mutex.signal();
+        }
+        full.signal();
+    }
+
+    @Override
+    public String take() throws InterruptedException {
+        full.waiting();
+        mutex.waiting();
+        String car;
+        try {
+            car = waitingQueue.poll();
+            size = waitingQueue.size();
+        } finally {
+            mutex.signal();
+        }
+        empty.signal();
+        return car;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+}
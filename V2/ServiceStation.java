@@ -1,54 +1,19 @@
-import java.util.Queue;
-import java.util.LinkedList;
 //import java.util.Scanner;
 import java.util.concurrent.ThreadLocalRandom;
 
 import javax.swing.JOptionPane;
 
 
-class Semaphore {
-    private int value;
-    public Semaphore() {
-        value = 0;
-    }
-
-    public Semaphore(int val) {
-        value = val;
-    }
-
-    public synchronized void waiting() throws InterruptedException {
-        while (value <= 0) {
-            wait();
-        }
-        value--;
-    }
-
-    public synchronized void signal() {
-        value++;
-        notifyAll();
-    }
-
-    public synchronized int get() {
-        return value;
-    }
-}
-
 class Pump extends Thread {
     private final int pumpId;
-    private final Queue<String> waitingQueue; // shared queue of car names
-    private final Semaphore mutex;
-    private final Semaphore empty;
-    private final Semaphore full;
+    private final WaitingArea waitingArea; // shared waiting area of car names
     private final Semaphore pumps;
     private volatile boolean running = true;
     private final GUI gui;
 
-    public Pump(int pumpId, Queue<String> waitingQueue, Semaphore mutex, Semaphore empty, Semaphore full, Semaphore pumps, GUI gui) {
+    public Pump(int pumpId, WaitingArea waitingArea, Semaphore pumps, GUI gui) {
         this.pumpId = pumpId;
-        this.waitingQueue = waitingQueue;
-        this.mutex = mutex;
-        this.empty = empty;
-        this.full = full;
+        this.waitingArea = waitingArea;
         this.pumps = pumps;
         this.gui = gui;
         setName("Pump " + pumpId);
@@ -63,20 +28,9 @@ class Pump extends Thread {
     public void run() {
         try {
             while (running && !Thread.currentThread().isInterrupted()) {
-                full.waiting(); // wait until at least one car exists
-                mutex.waiting(); // enter critical section
+                String car = waitingArea.take(); // wait until at least one car exists, frees its slot
+                gui.updateQueueSize(waitingArea.size());
 
-                String car;
-                try {
-                    car = waitingQueue.poll();
-                    gui.updateQueueSize(waitingQueue.size());
-
-                } finally {
-                    mutex.signal();
-                }
-                if (car == null) continue;
-
-                empty.signal(); // one more free slot in waiting area
                 pumps.waiting(); // acquire service bay
 
                 
@@ -87,7 +41,6 @@ class Pump extends Thread {
                 gui.setPumpBusy(pumpId, car);
                 Validator.get().checkCarService(car);
                 Validator.get().markPumpBusy(pumpId);
-                Validator.get().checkActivePumps(gui.activePumps);
                 gui.incrementActivePumps();
                 
                 try {
@@ -122,21 +75,15 @@ class Pump extends Thread {
 
 class Car implements Runnable {
     private final String carName;
-    private final Queue<String> waitingQueue; // The shared resource (Bounded Buffer)
-    private final Semaphore empty; // Represents available slots (Car checks this)
-    private final Semaphore full;  // Represents occupied slots (Car increments this)
-    private final Semaphore mutex; // The lock for the critical section
+    private final WaitingArea waitingArea; // The shared resource (Bounded Buffer)
     private static int carsArrived = 0;
     private static final Object arrivalLock = new Object();
     private final GUI gui;
 
 
-    public Car(String name, Queue<String> queue, Semaphore empty, Semaphore full, Semaphore mutex, GUI gui) {
+    public Car(String name, WaitingArea waitingArea, GUI gui) {
         this.carName = name;
-        this.waitingQueue = queue;
-        this.empty = empty;
-        this.full = full;
-        this.mutex = mutex;
+        this.waitingArea = waitingArea;
         this.gui = gui;
     }
 
@@ -154,33 +101,22 @@ class Car implements Runnable {
         }
 
         try {
-            empty.waiting();
-
-            mutex.waiting();
-            try {
-                // Count how many cars have arrived so far
-                synchronized (arrivalLock) {
-                    carsArrived++;
-                }
-
-                boolean shouldShowWaiting = carsArrived >= 4;
-                waitingQueue.add(carName);
-                gui.updateQueueSize(waitingQueue.size());
-                Validator.get().checkQueueLimit(waitingQueue.size());
+            waitingArea.enter(carName);
 
+            // Count how many cars have arrived so far
+            boolean shouldShowWaiting;
+            synchronized (arrivalLock) {
+                shouldShowWaiting = ++carsArrived >= 4;
+            }
 
+            int queueSize = waitingArea.size();
+            gui.updateQueueSize(queueSize);
+            Validator.get().checkQueueLimit(queueSize);
 
-                if (shouldShowWaiting) {
-                    
-                        Logger.log(carName + " arrived and waiting");
-                    
-                }
-            } finally {
-                mutex.signal();
+            if (shouldShowWaiting) {
+                Logger.log(carName + " arrived and waiting");
             }
 
-            full.signal();
-
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
@@ -188,25 +124,23 @@ class Car implements Runnable {
 }
 
 public class ServiceStation {
-    private final Queue<String> waitingQueue;
-    private final Semaphore mutex;
-    private final Semaphore empty;
-    private final Semaphore full;
+    private final WaitingArea waitingArea;
     private final Semaphore pumps;
     private final Pump[] pumpThreads;
     private final GUI gui;
 
     public ServiceStation(int waitingAreaSize, int numberOfPumps, GUI gui) {
-        waitingQueue = new LinkedList<>();
-        mutex = new Semaphore(1);
-        empty = new Semaphore(waitingAreaSize);
-        full = new Semaphore(0);
+        this(WaitingArea.create(WaitingArea.configuredMode(), waitingAreaSize), numberOfPumps, gui);
+    }
+
+    public ServiceStation(WaitingArea waitingArea, int numberOfPumps, GUI gui) {
+        this.waitingArea = waitingArea;
         pumps = new Semaphore(numberOfPumps);
         this.gui = gui;
 
         pumpThreads = new Pump[numberOfPumps];
         for (int i = 0; i < numberOfPumps; i++) {
-            pumpThreads[i] = new Pump(i + 1, waitingQueue, mutex, empty, full, pumps, gui);
+            pumpThreads[i] = new Pump(i + 1, waitingArea, pumps, gui);
         }
     }
 
@@ -217,7 +151,7 @@ public class ServiceStation {
     }
 
     public void addCar(String carName) {
-        new Thread(new Car(carName, waitingQueue, empty, full, mutex, gui)).start();
+        new Thread(new Car(carName, waitingArea, gui)).start();
     }
     
     public void start(String[] cars, int arrivalDelayMillis) {
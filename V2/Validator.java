@@ -1,19 +1,48 @@
-import java.util.HashSet;
-import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Checks the station's invariants from the pump and car threads without a shared lock:
+ * per-pump state is one CAS on the pump's own slot, the counters are LongAdders, and
+ * duplicate service is looked up in a fixed-size table of recently served cars.
+ *
+ * Mode (-Dstation.validator): ALWAYS checks everything, SAMPLED checks one car in
+ * station.validator.sampleRate (default 64), OFF checks nothing.
+ */
 public class Validator {
-    private static Validator instance;
-    private int waitingCapacity;
-    private int totalPumps;
-    private GUI gui;
-    
-    private Set<String> carsInService = new HashSet<>();
-    private Set<Integer> busyPumps = new HashSet<>();
+    public enum Mode { ALWAYS, SAMPLED, OFF }
+
+    private static volatile Validator instance;
+    private final int waitingCapacity;
+    private final int totalPumps;
+    private final GUI gui;
+    private final Mode mode;
+    private final int sampleRate;
+
+    private final AtomicIntegerArray busyPumps;           // 1 while pump id-1 is serving
+    private final AtomicInteger activePumps = new AtomicInteger();
+    private final AtomicReferenceArray<String> recentCars; // direct-mapped, newest car wins the slot
+    private final int recentMask;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder queueOverflows = new LongAdder();
+    private final LongAdder pumpOverflows = new LongAdder();
+    private final LongAdder duplicateServices = new LongAdder();
+    private final LongAdder pumpStateErrors = new LongAdder();
 
     private Validator(int waitingCapacity, int totalPumps, GUI gui) {
         this.waitingCapacity = waitingCapacity;
         this.totalPumps = totalPumps;
         this.gui = gui;
+        mode = Mode.valueOf(System.getProperty("station.validator", "always").trim().toUpperCase());
+        sampleRate = Math.max(1, Integer.getInteger("station.validator.sampleRate", 64));
+        busyPumps = new AtomicIntegerArray(Math.max(0, totalPumps));
+        int window = Integer.highestOneBit(Math.max(2, Integer.getInteger("station.validator.window", 4096)) - 1) << 1;
+        recentCars = new AtomicReferenceArray<>(window);
+        recentMask = window - 1;
     }
 
     public static void init(int waitingCapacity, int totalPumps, GUI gui) {
@@ -24,43 +53,103 @@ public class Validator {
         return instance;
     }
 
-    // ✅ 1. التأكد من إن الطابور ما زادش عن السعة
-    public synchronized void checkQueueLimit(int queueSize) {
-        if (queueSize > waitingCapacity) {
-            Logger.log("⚠️ Validator: Queue exceeded capacity (" + queueSize + "/" + waitingCapacity + ")");
+    public int totalPumps() {
+        return totalPumps;
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    // Random 1-in-N for the limit checks; which thread hits it doesn't matter.
+    private boolean sampled() {
+        switch (mode) {
+            case ALWAYS: return true;
+            case OFF: return false;
+            default: return ThreadLocalRandom.current().nextInt(sampleRate) == 0;
         }
     }
 
-    // ✅ 2. التأكد إن عدد الـ Pumps الشغالة مش أكتر من المسموح
-    public synchronized void checkActivePumps(int activeCount) {
-        if (activeCount > totalPumps) {
-            Logger.log("⚠️ Validator: Active pumps exceed total limit (" + activeCount + "/" + totalPumps + ")");
+    // ✅ 1. التأكد من إن الطابور ما زادش عن السعة
+    public void checkQueueLimit(int queueSize) {
+        if (!sampled()) {
+            return;
+        }
+        checks.increment();
+        if (queueSize > waitingCapacity) {
+            queueOverflows.increment();
+            Logger.log("⚠️ Validator: Queue exceeded capacity (" + queueSize + "/" + waitingCapacity + ")");
         }
     }
 
     // ✅ 3. التأكد إن العربية ما بدأتش الخدمة مرتين
-    public synchronized void checkCarService(String carName) {
-        if (carsInService.contains(carName)) {
+    // Sampling is by name, so a sampled car is checked every time it shows up. Only the last
+    // station.validator.window cars are remembered, so a duplicate far apart can be missed.
+    public void checkCarService(String carName) {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        int hash = carName.hashCode() * 0x9E3779B9;
+        if (mode == Mode.SAMPLED && Integer.remainderUnsigned(hash, sampleRate) != 0) {
+            return;
+        }
+        checks.increment();
+        String previous = recentCars.getAndSet((hash ^ (hash >>> 16)) & recentMask, carName);
+        if (carName.equals(previous)) {
+            duplicateServices.increment();
             Logger.log("⚠️ Validator: " + carName + " tried to start service twice!");
-        } else {
-            carsInService.add(carName);
         }
     }
 
     // ✅ 4. التأكد إن الـ Pump حرّر الـ bay بعد الانتهاء
-    public synchronized void markPumpBusy(int pumpId) {
-        if (busyPumps.contains(pumpId)) {
+    // Busy/free pairs are always tracked (unless OFF) so a sampled-out busy can't look like a double free.
+    public void markPumpBusy(int pumpId) {
+        if (mode == Mode.OFF || pumpId < 1 || pumpId > busyPumps.length()) {
+            return;
+        }
+        checks.increment();
+        if (!busyPumps.compareAndSet(pumpId - 1, 0, 1)) {
+            pumpStateErrors.increment();
             Logger.log("⚠️ Validator: Pump " + pumpId + " already busy but assigned again!");
-        } else {
-            busyPumps.add(pumpId);
+            return;
+        }
+        // ✅ 2. التأكد إن عدد الـ Pumps الشغالة مش أكتر من المسموح
+        // Counted here only, from the validator's own count, not again from the dashboard's.
+        int active = activePumps.incrementAndGet();
+        if (active > totalPumps) {
+            pumpOverflows.increment();
+            Logger.log("⚠️ Validator: Active pumps exceed total limit (" + active + "/" + totalPumps + ")");
         }
     }
 
-    public synchronized void markPumpFree(int pumpId) {
-        if (!busyPumps.contains(pumpId)) {
+    public void markPumpFree(int pumpId) {
+        if (mode == Mode.OFF || pumpId < 1 || pumpId > busyPumps.length()) {
+            return;
+        }
+        checks.increment();
+        if (!busyPumps.compareAndSet(pumpId - 1, 1, 0)) {
+            pumpStateErrors.increment();
             Logger.log("⚠️ Validator: Pump " + pumpId + " was already free!");
-        } else {
-            busyPumps.remove(pumpId);
+            return;
         }
+        activePumps.decrementAndGet();
+    }
+
+    public long checks() {
+        return checks.sum();
+    }
+
+    public long violations() {
+        return queueOverflows.sum() + pumpOverflows.sum() + duplicateServices.sum() + pumpStateErrors.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "Validator[" + mode + (mode == Mode.SAMPLED ? " 1/" + sampleRate : "")
+                + "] checks=" + checks.sum()
+                + " queueOverflows=" + queueOverflows.sum()
+                + " pumpOverflows=" + pumpOverflows.sum()
+                + " duplicateServices=" + duplicateServices.sum()
+                + " pumpStateErrors=" + pumpStateErrors.sum();
     }
 }
@@ -0,0 +1,44 @@
+/**
+ * The bounded waiting area between arriving cars (producers) and pumps (consumers).
+ * Cars block in {@link #enter(String)} while the area is full and pumps block in
+ * {@link #take()} while it is empty.
+ */
+public interface WaitingArea {
+
+    enum Mode {
+        RING_BUFFER, // preallocated array ring, no lock between producers and consumers
+        SEMAPHORE    // LinkedList guarded by the classic mutex/empty/full semaphores
+    }
+
+    /**
+     * Waits until a space is available, then adds the car to the waiting area.
+     * @param car The name/ID of the car.
+     */
+    void enter(String car) throws InterruptedException;
+
+    /**
+     * Waits until at least one car is waiting, then removes and returns the oldest one.
+     */
+    String take() throws InterruptedException;
+
+    int size();
+
+    int capacity();
+
+    static WaitingArea create(Mode mode, int capacity) {
+        switch (mode) {
+            case SEMAPHORE:
+                return new SemaphoreWaitingArea(capacity);
+            case RING_BUFFER:
+            default:
+                return new RingBufferWaitingArea(capacity);
+        }
+    }
+
+    /**
+     * Reads the mode from -Dstation.waitingArea=ring_buffer|semaphore (ring buffer by default).
+     */
+    static Mode configuredMode() {
+        return Mode.valueOf(System.getProperty("station.waitingArea", "ring_buffer").trim().toUpperCase());
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bounded waiting area between arriving cars (producers) and pumps (consumers).
+ * Cars block in {@link #enter(Object)} while the area is full and pumps block in
+ * {@link #take()} while it is empty.
+ * @param <E> What is queued: a car name, or the Car itself when pumps need its timestamps.
+ */
+public interface WaitingArea<E> {
+
+    enum Mode {
+        RING_BUFFER, // preallocated array ring, no lock between producers and consumers
+        SEMAPHORE,   // LinkedList guarded by the classic mutex/empty/full semaphores
+        LANES,       // a lane per pump with work stealing (LaneWaitingArea)
+        FAIR         // ticketed ring buffer, cars get in strictly in arrival order (FairWaitingArea)
+    }
+
+    /**
+     * Waits until a space is available, then adds the car to the waiting area.
+     * @param car The car, or its name/ID.
+     */
+    void enter(E car) throws InterruptedException;
+
+    /**
+     * Adds the car if a space is free, without waiting.
+     * @return false if the area was full.
+     */
+    boolean tryEnter(E car);
+
+    /**
+     * Like {@link #enter(Object)}, but gives up once the timeout has elapsed.
+     * @return false if the car did not get in.
+     */
+    boolean enter(E car, long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Adds the car without waiting; an area that knows the cars' priorities may turn a
+     * lower priority car already waiting away to make room (see {@link SheddingWaitingArea}).
+     * @return null if nobody was turned away, the car itself if it did not get in, or the
+     *         waiting car it replaced.
+     */
+    default E enterOrShed(E car) {
+        return tryEnter(car) ? null : car;
+    }
+
+    /**
+     * Waits until at least one car is waiting, then removes and returns the oldest one.
+     */
+    E take() throws InterruptedException;
+
+    /**
+     * Waits until at least one car is waiting, then moves up to max of the oldest cars
+     * into the batch, oldest first, in one go.
+     * @return How many cars were moved, at least 1.
+     */
+    default int takeBatch(List<? super E> batch, int max) throws InterruptedException {
+        batch.add(take());
+        return 1;
+    }
+
+    int size();
+
+    int capacity();
+
+    static <E> WaitingArea<E> create(Mode mode, int capacity) {
+        switch (mode) {
+            case SEMAPHORE:
+                return new SemaphoreWaitingArea<>(capacity);
+            case LANES:
+                return new LaneWaitingArea<>(capacity, Runtime.getRuntime().availableProcessors(),
+                        LaneWaitingArea.Distribution.LEAST_LOADED);
+            case FAIR:
+                return new FairWaitingArea<>(capacity);
+            case RING_BUFFER:
+            default:
+                return new RingBufferWaitingArea<>(capacity);
+        }
+    }
+
+    /**
+     * @param handoff Whether arriving cars go straight to an idle pump (see HandoffWaitingArea).
+     */
+    static <E> WaitingArea<E> create(Mode mode, int capacity, boolean handoff) {
+        WaitingArea<E> area = create(mode, capacity);
+        return handoff ? new HandoffWaitingArea<>(area) : area;
+    }
+
+    /**
+     * Reads the mode from -Dstation.waitingArea=ring_buffer|semaphore|lanes|fair (ring buffer by default).
+     */
+    static Mode configuredMode() {
+        return Mode.valueOf(System.getProperty("station.waitingArea", "ring_buffer").trim().toUpperCase());
+    }
+}
@@ -0,0 +1,133 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams a workload one car at a time, so its size does not matter. Each line is either
+ * a car name, or CSV: {@code name,arrivalMillis[,serviceClass]} where arrivalMillis is the
+ * offset from the start of the run. Blank lines and lines starting with # are skipped, and
+ * so is a header line whose arrival column is not a number.
+ */
+public class WorkloadReader implements Iterator<WorkloadReader.Arrival>, Closeable {
+
+    public static final class Arrival {
+        private final String name;
+        private final long atMillis;
+        private final String serviceClass;
+
+        Arrival(String name, long atMillis, String serviceClass) {
+            this.name = name;
+            this.atMillis = atMillis;
+            this.serviceClass = serviceClass;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /**
+         * When the car arrives, relative to the start of the run, or -1 if the line did not say.
+         */
+        public long atMillis() {
+            return atMillis;
+        }
+
+        /**
+         * The service class, or null if the line did not say.
+         */
+        public String serviceClass() {
+            return serviceClass;
+        }
+    }
+
+    private final BufferedReader in;
+    private Arrival next;
+    private long lineNumber;
+    private boolean started; // a header or car has been read, so no header can follow
+
+    public WorkloadReader(BufferedReader in) {
+        this.in = in;
+    }
+
+    /**
+     * @param source A file path, or "-" for standard input.
+     */
+    public static WorkloadReader open(String source) throws IOException {
+        if (source.equals("-")) {
+            return new WorkloadReader(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+        }
+        return new WorkloadReader(Files.newBufferedReader(Path.of(source), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                next = parse(line.trim());
+                if (next != null) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Arrival next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Arrival arrival = next;
+        next = null;
+        return arrival;
+    }
+
+    private Arrival parse(String line) {
+        if (line.isEmpty() || line.startsWith("#")) {
+            return null;
+        }
+        int first = line.indexOf(',');
+        if (first < 0) {
+            started = true;
+            return new Arrival(line, -1, null);
+        }
+        int second = line.indexOf(',', first + 1);
+        String name = line.substring(0, first).trim();
+        String at = (second < 0 ? line.substring(first + 1) : line.substring(first + 1, second)).trim();
+        String serviceClass = second < 0 ? null : line.substring(second + 1).trim();
+        long atMillis;
+        try {
+            atMillis = at.isEmpty() ? -1 : Long.parseLong(at);
+        } catch (NumberFormatException e) {
+            if (!started) {
+                started = true;
+                return null; // header
+            }
+            throw new IllegalArgumentException("Line " + lineNumber + ": arrival time is not a number: " + line);
+        }
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": missing car name: " + line);
+        }
+        started = true;
+        return new Arrival(name, atMillis, serviceClass == null || serviceClass.isEmpty() ? null : serviceClass);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,104 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The price of fairness: cars per second through an overfull waiting area, barging
+ * (RING_BUFFER, cars race for free slots) against FAIR (cars get in in arrival order).
+ * JMH reports the throughput. Each car is the nanoTime at which it arrived, and the time
+ * from arrival until a pump takes it is recorded in a LatencyHistogram. The wait
+ * percentiles are printed after every iteration, since the tail is what fairness improves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FairnessBenchmark {
+    static final int CARS = 48_000; // divisible by every producer and pump count below
+
+    @Param({"RING_BUFFER", "FAIR"})
+    public String mode;
+
+    @Param({"16"})
+    public int capacity;
+
+    @Param({"4", "16"})
+    public int producers;
+
+    @Param({"1", "4"})
+    public int pumps;
+
+    private Object waitingArea;
+    private Object waits;
+    private ExecutorService threads;
+
+    @Setup
+    public void setup() {
+        waitingArea = Station.call(Station.type("WaitingArea"), "create",
+                Station.constant("WaitingArea$Mode", mode), capacity, false);
+        threads = Executors.newFixedThreadPool(producers + pumps);
+    }
+
+    @Setup(Level.Iteration)
+    public void newHistogram() {
+        waits = Station.create("LatencyHistogram");
+    }
+
+    @TearDown(Level.Iteration)
+    public void printWaits() {
+        System.out.println(" [" + mode + " wait: " + Station.call(waits, "snapshot") + "]");
+    }
+
+    @TearDown
+    public void tearDown() {
+        threads.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CARS)
+    public void arrivals() throws Exception {
+        List<Future<?>> running = new ArrayList<>(producers + pumps);
+        for (int p = 0; p < producers; p++) {
+            running.add(threads.submit(() -> {
+                for (int i = CARS / producers; i > 0; i--) {
+                    Station.enter(waitingArea, System.nanoTime());
+                }
+                return null;
+            }));
+        }
+        for (int c = 0; c < pumps; c++) {
+            running.add(threads.submit(() -> {
+                for (int i = CARS / pumps; i > 0; i--) {
+                    long arrivedAt = (Long) Station.take(waitingArea);
+                    Station.record(waits, System.nanoTime() - arrivedAt);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> task : running) {
+            task.get();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cars per second moved through a WaitingArea by a number of producer (Car) threads and
+ * consumer (Pump) threads, with no arrival or service time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandoffBenchmark {
+    static final int CARS = 120_000; // divisible by every producer and pump count below
+    private static final String CAR = "Car";
+
+    @Param({"RING_BUFFER", "SEMAPHORE", "LANES"})
+    public String mode;
+
+    @Param({"16"})
+    public int capacity;
+
+    @Param({"false", "true"})
+    public boolean direct; // HandoffWaitingArea in front of the area
+
+    @Param({"1", "2", "4", "8"})
+    public int producers;
+
+    @Param({"1", "2", "4", "8"})
+    public int pumps;
+
+    private Object waitingArea;
+    private ExecutorService threads;
+
+    @Setup
+    public void setup() {
+        waitingArea = Station.call(Station.type("WaitingArea"), "create",
+                Station.constant("WaitingArea$Mode", mode), capacity, direct);
+        threads = Executors.newFixedThreadPool(producers + pumps);
+    }
+
+    @TearDown
+    public void tearDown() {
+        threads.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CARS)
+    public void handoff() throws Exception {
+        List<Future<?>> running = new ArrayList<>(producers + pumps);
+        for (int p = 0; p < producers; p++) {
+            running.add(threads.submit(() -> {
+                for (int i = CARS / producers; i > 0; i--) {
+                    Station.enter(waitingArea, CAR);
+                }
+                return null;
+            }));
+        }
+        for (int c = 0; c < pumps; c++) {
+            running.add(threads.submit(() -> {
+                for (int i = CARS / pumps; i > 0; i--) {
+                    Station.take(waitingArea);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> task : running) {
+            task.get();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Permits per second passed in batches from one releasing thread to a number of claiming
+ * threads, the way a waiting area's takeBatch hands slots back and claims cars:
+ * single - signal() per permit, and waiting() then drainUpTo(batch - 1) to claim
+ * bulk   - signal(batch), and drain(batch) to claim
+ * The claiming threads are stopped by interrupting their drain once every permit is taken.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SemaphoreBatchBenchmark {
+    static final int PERMITS = 96_000; // divisible by every batch size below
+
+    @Param({"single", "bulk"})
+    public String api;
+
+    @Param({"1", "8", "32"})
+    public int batch;
+
+    @Param({"1", "4"})
+    public int claimers;
+
+    private boolean bulk;
+    private ExecutorService threads;
+
+    @Setup
+    public void setup() {
+        bulk = api.equals("bulk");
+        threads = Executors.newFixedThreadPool(1 + claimers);
+    }
+
+    @TearDown
+    public void tearDown() {
+        threads.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PERMITS)
+    public void batches() throws Exception {
+        Object semaphore = Station.create("Semaphore", 0);
+        AtomicInteger claimed = new AtomicInteger();
+        CountDownLatch allClaimed = new CountDownLatch(1);
+        List<Future<?>> claiming = new ArrayList<>(claimers);
+        for (int c = 0; c < claimers; c++) {
+            claiming.add(threads.submit(() -> {
+                try {
+                    while (true) {
+                        int count;
+                        if (bulk) {
+                            count = Station.drain(semaphore, batch);
+                        } else {
+                            Station.waiting(semaphore);
+                            count = 1 + Station.drainUpTo(semaphore, batch - 1);
+                        }
+                        if (claimed.addAndGet(count) == PERMITS) {
+                            allClaimed.countDown();
+                        }
+                    }
+                } catch (InterruptedException stopped) {
+                    return null;
+                }
+            }));
+        }
+        Future<?> releasing = threads.submit(() -> {
+            for (int i = PERMITS / batch; i > 0; i--) {
+                if (bulk) {
+                    Station.signal(semaphore, batch);
+                } else {
+                    for (int p = 0; p < batch; p++) {
+                        Station.signal(semaphore);
+                    }
+                }
+            }
+            return null;
+        });
+        releasing.get();
+        allClaimed.await();
+        for (Future<?> claimer : claiming) {
+            claimer.cancel(true);
+        }
+    }
+}
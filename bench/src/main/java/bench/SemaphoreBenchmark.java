@@ -0,0 +1,97 @@
+package bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * waiting()/signal() pairs on a single-permit semaphore, i.e. the 'mutex' use, for each
+ * implementation the repository has shipped:
+ * cas               - Semaphore (atomic count, spin then park, wakes one waiter)
+ * cas-timed         - Semaphore, acquired with waiting(timeout, unit)
+ * cas-try           - Semaphore, acquired by retrying tryWaiting() without ever parking
+ * monitor-notifyAll - MonitorSemaphore(1, true), the old semaphore.java and V2 version
+ * monitor-notify    - MonitorSemaphore(1, false), the old ServiceStationConsole version
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SemaphoreBenchmark {
+
+    public abstract static class Variant {
+        @Param({"cas", "cas-timed", "cas-try", "monitor-notifyAll", "monitor-notify"})
+        public String variant;
+
+        Object semaphore;
+        int kind; // index into the variants above, so the hot path does not compare strings
+
+        @Setup
+        public void setup() {
+            kind = List.of("cas", "cas-timed", "cas-try", "monitor-notifyAll", "monitor-notify").indexOf(variant);
+            semaphore = variant.startsWith("cas")
+                    ? Station.create("Semaphore", 1)
+                    : Station.create("MonitorSemaphore", 1, variant.equals("monitor-notifyAll"));
+        }
+
+        void acquireRelease() throws InterruptedException {
+            switch (kind) {
+                case 0 -> Station.waiting(semaphore);
+                case 1 -> {
+                    while (!Station.waiting(semaphore, 1, TimeUnit.SECONDS)) {
+                        // only with a stalled holder
+                    }
+                }
+                case 2 -> {
+                    while (!Station.tryWaiting(semaphore)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                default -> {
+                    Station.monitorWaiting(semaphore);
+                    Station.monitorSignal(semaphore);
+                    return;
+                }
+            }
+            Station.signal(semaphore);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Own extends Variant {
+    }
+
+    @State(Scope.Benchmark)
+    public static class Shared extends Variant {
+    }
+
+    @Benchmark
+    public void uncontended(Own own) throws InterruptedException {
+        own.acquireRelease();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void contended4(Shared shared) throws InterruptedException {
+        shared.acquireRelease();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void contended16(Shared shared) throws InterruptedException {
+        shared.acquireRelease();
+    }
+}
@@ -0,0 +1,243 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access to the station classes, which live in the unnamed package and therefore cannot be
+ * imported from a named one (and JMH refuses benchmarks in the unnamed package).
+ *
+ * Hot-path calls go through static final method handles, which the JIT treats as constants
+ * and inlines, so they cost the same as direct calls once warmed up. One-off setup calls
+ * use plain reflection.
+ */
+final class Station {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    private static final MethodHandle SEMAPHORE_WAITING = virtual("Semaphore", "waiting", void.class);
+    private static final MethodHandle SEMAPHORE_SIGNAL = virtual("Semaphore", "signal", void.class);
+    private static final MethodHandle SEMAPHORE_TRY_WAITING = virtual("Semaphore", "tryWaiting", boolean.class);
+    private static final MethodHandle SEMAPHORE_TIMED_WAITING =
+            virtual("Semaphore", "waiting", boolean.class, long.class, TimeUnit.class);
+    private static final MethodHandle SEMAPHORE_SIGNAL_N = virtual("Semaphore", "signal", void.class, int.class);
+    private static final MethodHandle SEMAPHORE_DRAIN = virtual("Semaphore", "drain", int.class, int.class);
+    private static final MethodHandle SEMAPHORE_DRAIN_UP_TO = virtual("Semaphore", "drainUpTo", int.class, int.class);
+    private static final MethodHandle MONITOR_WAITING = virtual("MonitorSemaphore", "waiting", void.class);
+    private static final MethodHandle MONITOR_SIGNAL = virtual("MonitorSemaphore", "signal", void.class);
+    private static final MethodHandle AREA_ENTER = virtual("WaitingArea", "enter", void.class, Object.class);
+    private static final MethodHandle AREA_TAKE = virtual("WaitingArea", "take", Object.class);
+    private static final MethodHandle STATION_ADD_CAR = virtual("ServiceStationConsole", "addCar", void.class, String.class);
+    private static final MethodHandle STATS_SERVED = virtual("QueueStats", "served", long.class);
+    private static final MethodHandle HISTOGRAM_RECORD = virtual("LatencyHistogram", "record", void.class, long.class);
+
+    private Station() {
+    }
+
+    static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Station class " + name + " is not on the classpath", e);
+        }
+    }
+
+    /**
+     * Creates a station object through its public constructor with the given arguments.
+     */
+    static Object create(String className, Object... args) {
+        try {
+            for (var constructor : type(className).getConstructors()) {
+                if (constructor.getParameterCount() == args.length) {
+                    try {
+                        return constructor.newInstance(args);
+                    } catch (IllegalArgumentException wrongTypes) {
+                        // try the next overload
+                    }
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        throw new IllegalArgumentException("No constructor " + className + " taking " + args.length + " arguments");
+    }
+
+    /**
+     * Calls a public instance method, or a static one when target is a Class.
+     */
+    static Object call(Object target, String name, Object... args) {
+        Class<?> owner = target instanceof Class<?> c ? c : target.getClass();
+        Object receiver = target instanceof Class<?> ? null : target;
+        try {
+            for (Method method : owner.getMethods()) {
+                if (method.getName().equals(name) && method.getParameterCount() == args.length) {
+                    try {
+                        return method.invoke(receiver, args);
+                    } catch (IllegalArgumentException wrongTypes) {
+                        // try the next overload
+                    }
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        throw new IllegalArgumentException("No method " + owner.getName() + "." + name + " taking " + args.length + " arguments");
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object constant(String enumName, String value) {
+        return Enum.valueOf((Class) type(enumName), value.toUpperCase());
+    }
+
+    static void waiting(Object semaphore) throws InterruptedException {
+        try {
+            SEMAPHORE_WAITING.invokeExact(semaphore);
+        } catch (InterruptedException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static void signal(Object semaphore) {
+        try {
+            SEMAPHORE_SIGNAL.invokeExact(semaphore);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static boolean tryWaiting(Object semaphore) {
+        try {
+            return (boolean) SEMAPHORE_TRY_WAITING.invokeExact(semaphore);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static boolean waiting(Object semaphore, long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            return (boolean) SEMAPHORE_TIMED_WAITING.invokeExact(semaphore, timeout, unit);
+        } catch (InterruptedException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static void signal(Object semaphore, int permits) {
+        try {
+            SEMAPHORE_SIGNAL_N.invokeExact(semaphore, permits);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static int drain(Object semaphore, int max) throws InterruptedException {
+        try {
+            return (int) SEMAPHORE_DRAIN.invokeExact(semaphore, max);
+        } catch (InterruptedException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static int drainUpTo(Object semaphore, int max) {
+        try {
+            return (int) SEMAPHORE_DRAIN_UP_TO.invokeExact(semaphore, max);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static void monitorWaiting(Object semaphore) throws InterruptedException {
+        try {
+            MONITOR_WAITING.invokeExact(semaphore);
+        } catch (InterruptedException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static void monitorSignal(Object semaphore) {
+        try {
+            MONITOR_SIGNAL.invokeExact(semaphore);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static void enter(Object waitingArea, Object car) throws InterruptedException {
+        try {
+            AREA_ENTER.invokeExact(waitingArea, car);
+        } catch (InterruptedException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static Object take(Object waitingArea) throws InterruptedException {
+        try {
+            return (Object) AREA_TAKE.invokeExact(waitingArea);
+        } catch (InterruptedException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static void addCar(Object station, String name) {
+        try {
+            STATION_ADD_CAR.invokeExact(station, name);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static long served(Object stats) {
+        try {
+            return (long) STATS_SERVED.invokeExact(stats);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static void record(Object histogram, long nanos) {
+        try {
+            HISTOGRAM_RECORD.invokeExact(histogram, nanos);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    // Erases the receiver (and any class-typed result) to Object so invokeExact call sites stay simple.
+    private static MethodHandle virtual(String className, String name, Class<?> returnType, Class<?>... parameters) {
+        try {
+            MethodHandle handle = LOOKUP.findVirtual(type(className), name, MethodType.methodType(returnType, parameters));
+            return handle.asType(handle.type().changeParameterType(0, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
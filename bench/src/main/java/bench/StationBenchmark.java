@@ -0,0 +1,107 @@
+package bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end cars per second of ServiceStationConsole with the arrival delay and the
+ * service time set to zero: every car thread, waiting area handoff and pump cycle, but no sleeping.
+ * The events go to the NONE sink, or are formatted as CONSOLE lines into a ConsoleWriter over a
+ * discarding channel, to show what the text output costs; with records > 0 the lines are rendered on an
+ * EventRecorder thread instead of the car and pump threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StationBenchmark {
+    static final int CARS = 10_000;
+
+    @Param({"RING_BUFFER", "SEMAPHORE"})
+    public String waitingArea;
+
+    @Param({"VIRTUAL", "PLATFORM"})
+    public String carThreads;
+
+    @Param({"4"})
+    public int capacity;
+
+    @Param({"1", "4"})
+    public int pumps;
+
+    @Param({"NONE", "CONSOLE"})
+    public String events;
+
+    @Param({"0", "8192"})
+    public int records;
+
+    private final String[] names = new String[CARS];
+    private Object station;
+    private Object stats;
+    private long served;
+    private PrintStream console;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < CARS; i++) {
+            names[i] = "C" + i;
+        }
+        // The console sink prints several lines per car; benchmark the formatting and buffering, not the terminal.
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Object discard = Station.create("ConsoleWriter", Channels.newChannel(OutputStream.nullOutputStream()),
+                StandardCharsets.UTF_8, 64 * 1024, 50L, "Console-Writer-Discard");
+
+        Object config = Station.create("StationConfig");
+        Station.call(config, "waitingAreaMode", Station.constant("WaitingArea$Mode", waitingArea));
+        Station.call(config, "carThreads", Station.constant("StationConfig$CarThreads", carThreads));
+        Station.call(config, "arrivalDelayMillis", 0, 0);
+        Station.call(config, "serviceMillis", 0);
+        Station.call(config, "events", Station.constant("StationConfig$Events", events));
+        Station.call(config, "eventRecords", records);
+        Station.call(config, "console", discard);
+
+        station = Station.create("ServiceStationConsole", capacity, pumps, config);
+        stats = Station.call(station, "stats");
+        Station.call(station, "startPumps");
+        served = 0;
+    }
+
+    @TearDown
+    public void tearDown() {
+        Station.call(station, "shutdown");
+        System.setOut(console);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CARS)
+    public void carsPerSecond() {
+        for (String name : names) {
+            Station.addCar(station, name);
+        }
+        served += CARS;
+        while (Station.served(stats) < served) {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+}
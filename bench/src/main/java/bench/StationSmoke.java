@@ -0,0 +1,73 @@
+package bench;
+
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Makes every call the benchmarks make into the station once, so that a renamed method or
+ * a changed signature in the root sources fails the build instead of the first benchmark
+ * run: the handles in {@link Station} are looked up by name and only resolved at run time.
+ * The pom runs it after compiling; skip it with -Dexec.skip.
+ */
+public final class StationSmoke {
+
+    private StationSmoke() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Object semaphore = Station.create("Semaphore", 1);
+        Station.waiting(semaphore);
+        Station.signal(semaphore);
+        check(Station.tryWaiting(semaphore), "tryWaiting");
+        Station.signal(semaphore, 2);
+        check(Station.waiting(semaphore, 1, TimeUnit.MILLISECONDS), "timed waiting");
+        check(Station.drainUpTo(semaphore, 1) == 1, "drainUpTo");
+        Station.signal(semaphore);
+        check(Station.drain(semaphore, 1) == 1, "drain");
+
+        Object monitor = Station.create("MonitorSemaphore", 1, false);
+        Station.monitorWaiting(monitor);
+        Station.monitorSignal(monitor);
+
+        for (Object mode : Station.type("WaitingArea$Mode").getEnumConstants()) {
+            Object waitingArea = Station.call(Station.type("WaitingArea"), "create", mode, 4, false);
+            Station.enter(waitingArea, "C1");
+            check("C1".equals(Station.take(waitingArea)), mode + " waiting area");
+        }
+
+        Object histogram = Station.create("LatencyHistogram");
+        Station.record(histogram, 1_000);
+        Station.call(histogram, "snapshot");
+
+        Object discard = Station.create("ConsoleWriter", Channels.newChannel(OutputStream.nullOutputStream()),
+                StandardCharsets.UTF_8, 64 * 1024, 50L, "Console-Writer-Discard");
+        Object config = Station.create("StationConfig");
+        Station.call(config, "waitingAreaMode", Station.constant("WaitingArea$Mode", "RING_BUFFER"));
+        Station.call(config, "carThreads", Station.constant("StationConfig$CarThreads", "VIRTUAL"));
+        Station.call(config, "arrivalDelayMillis", 0, 0);
+        Station.call(config, "serviceMillis", 0);
+        Station.call(config, "events", Station.constant("StationConfig$Events", "CONSOLE"));
+        Station.call(config, "eventRecords", 16);
+        Station.call(config, "console", discard);
+        Object station = Station.create("ServiceStationConsole", 4, 1, config);
+        Object stats = Station.call(station, "stats");
+        Station.call(station, "startPumps");
+        Station.addCar(station, "C1");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (Station.served(stats) < 1) {
+            check(System.nanoTime() < deadline, "station serving a car");
+            LockSupport.parkNanos(1_000_000);
+        }
+        Station.call(station, "shutdown");
+        System.out.println("Station smoke check passed");
+    }
+
+    private static void check(boolean ok, String what) {
+        if (!ok) {
+            throw new IllegalStateException("Station smoke check failed: " + what);
+        }
+    }
+}
@@ -1,20 +1,13 @@
-import java.util.Queue;
-
 public class Pump extends Thread {
     private final int pumpId;
-    private final Queue<String> waitingQueue; // shared queue of car names
-    private final Semaphore mutex;
-    private final Semaphore empty;
-    private final Semaphore full;
+    private final WaitingArea<String> waitingArea; // shared waiting area of car names
     private final Semaphore pumps;
+    private final ConsoleWriter console = ConsoleWriter.stdout();
     private volatile boolean running = true;
 
-    public Pump(int pumpId, Queue<String> waitingQueue, Semaphore mutex, Semaphore empty, Semaphore full, Semaphore pumps) {
+    public Pump(int pumpId, WaitingArea<String> waitingArea, Semaphore pumps) {
         this.pumpId = pumpId;
-        this.waitingQueue = waitingQueue;
-        this.mutex = mutex;
-        this.empty = empty;
-        this.full = full;
+        this.waitingArea = waitingArea;
         this.pumps = pumps;
         setName("Pump " + pumpId);
     }
@@ -28,29 +21,15 @@ public class Pump extends Thread {
     public void run() {
         try {
             while (running && !Thread.currentThread().isInterrupted()) {
-                full.waiting();   // wait until at least one car exists
-                mutex.waiting();  // enter critical section
+                String car = waitingArea.take(); // wait until at least one car exists, frees its slot
 
-                String car;
-                try {
-                    car = waitingQueue.poll();
-                } finally {
-                    mutex.signal();
-                }
-                if (car == null) continue;
-
-                empty.signal();     // one more free slot in waiting area
-
-                synchronized (System.out) {
-                    System.out.println("Pump " + pumpId + ": " + car + " Occupied");
-                }
+                console.println("Pump " + pumpId + ": " + car + " Occupied");
 
                 pumps.waiting(); // acquire service bay
 
-                synchronized (System.out) {
-                    System.out.println("Pump " + pumpId + ": " + car + " login");
-                    System.out.println("Pump " + pumpId + ": " + car + " begins service at Bay " + pumpId);
-                }
+                // Both lines in one call, so no other pump's line comes between them
+                console.append("Pump " + pumpId + ": " + car + " login" + System.lineSeparator()
+                        + "Pump " + pumpId + ": " + car + " begins service at Bay " + pumpId + System.lineSeparator());
 
                 try {
                     Thread.sleep(1000); // fixed service time for clearer output
@@ -60,18 +39,15 @@ public class Pump extends Thread {
                     break;
                 }
 
-                synchronized (System.out) {
-                    System.out.println("Pump " + pumpId + ": " + car + " finishes service");
-                    System.out.println("Pump " + pumpId + ": Bay " + pumpId + " is now free");
-                }
+                console.append("Pump " + pumpId + ": " + car + " finishes service" + System.lineSeparator()
+                        + "Pump " + pumpId + ": Bay " + pumpId + " is now free" + System.lineSeparator());
                 pumps.signal(); // release bay
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         } finally {
-            synchronized (System.out) {
-                System.out.println("Pump " + pumpId + " shutting down.");
-            }
+            console.println("Pump " + pumpId + " shutting down.");
+            console.flush(); // the lines still buffered are not lost when the pump stops
         }
     }
 }